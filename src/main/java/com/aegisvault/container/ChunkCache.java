@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class ChunkCache {
+
+    private final LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long capacity;
+    private long size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    ChunkCache(long capacity) {
+        setCapacity(capacity);
+    }
+
+    synchronized byte[] get(long chunkId) {
+        byte[] cached = entries.get(chunkId);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.clone();
+    }
+
+    synchronized void put(long chunkId, byte[] plain) {
+        if (plain.length > capacity) {
+            return;
+        }
+        byte[] previous = entries.put(chunkId, plain.clone());
+        if (previous != null) {
+            size -= previous.length;
+            Arrays.fill(previous, (byte) 0);
+        }
+        size += plain.length;
+        evictToCapacity();
+    }
+
+    synchronized void invalidate(long chunkId) {
+        byte[] removed = entries.remove(chunkId);
+        if (removed != null) {
+            size -= removed.length;
+            Arrays.fill(removed, (byte) 0);
+        }
+    }
+
+    synchronized void clear() {
+        for (byte[] cached : entries.values()) {
+            Arrays.fill(cached, (byte) 0);
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    synchronized void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative");
+        }
+        this.capacity = capacity;
+        evictToCapacity();
+    }
+
+    synchronized long getCapacity() {
+        return capacity;
+    }
+
+    synchronized ChunkCacheStats getStats() {
+        return new ChunkCacheStats(capacity, size, entries.size(), hits, misses, evictions);
+    }
+
+    private void evictToCapacity() {
+        Iterator<Map.Entry<Long, byte[]>> eldest = entries.entrySet().iterator();
+        while (size > capacity && eldest.hasNext()) {
+            byte[] evicted = eldest.next().getValue();
+            eldest.remove();
+            size -= evicted.length;
+            Arrays.fill(evicted, (byte) 0);
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+public final class ChunkCacheStats {
+
+    private final long capacityBytes;
+    private final long cachedBytes;
+    private final int cachedChunks;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    ChunkCacheStats(long capacityBytes, long cachedBytes, int cachedChunks, long hits, long misses, long evictions) {
+        this.capacityBytes = capacityBytes;
+        this.cachedBytes = cachedBytes;
+        this.cachedChunks = cachedChunks;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public int getCachedChunks() {
+        return cachedChunks;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+public interface ChunkCodec {
+
+    byte getId();
+
+    String getName();
+
+    byte[] compress(byte[] data, int offset, int length);
+
+    byte[] decompress(byte[] data, int plainLength);
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.exception.VaultException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ChunkCodecs {
+
+    public static final byte NONE = 0;
+
+    private static final int SAMPLE_SIZE = 4096;
+    private static final double MAX_SAMPLE_RATIO = 0.9;
+
+    private static final Map<Byte, ChunkCodec> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(new DeflateChunkCodec());
+    }
+
+    private ChunkCodecs() {
+    }
+
+    public static void register(ChunkCodec codec) {
+        if (codec == null || codec.getId() == NONE || codec.getId() == DeflateChunkCodec.DICTIONARY_ID) {
+            throw new IllegalArgumentException("Codec IDs 0 and 2 are reserved");
+        }
+        ChunkCodec existing = CODECS.putIfAbsent(codec.getId(), codec);
+        if (existing != null && !existing.getClass().equals(codec.getClass())) {
+            throw new IllegalArgumentException("Codec ID " + codec.getId() + " is already used by " + existing.getName());
+        }
+    }
+
+    public static ChunkCodec get(byte id) {
+        ChunkCodec codec = CODECS.get(id);
+        if (codec == null) {
+            throw new VaultException("Unknown chunk codec: " + id);
+        }
+        return codec;
+    }
+
+    public static boolean isRegistered(byte id) {
+        return id == NONE || CODECS.containsKey(id);
+    }
+
+    static boolean looksCompressible(ChunkCodec codec, byte[] data, int length) {
+        if (length <= SAMPLE_SIZE * 3) {
+            return true;
+        }
+        byte[] sample = new byte[SAMPLE_SIZE * 3];
+        System.arraycopy(data, 0, sample, 0, SAMPLE_SIZE);
+        System.arraycopy(data, length / 2 - SAMPLE_SIZE / 2, sample, SAMPLE_SIZE, SAMPLE_SIZE);
+        System.arraycopy(data, length - SAMPLE_SIZE, sample, SAMPLE_SIZE * 2, SAMPLE_SIZE);
+        boolean compressible = codec.compress(sample, 0, sample.length).length < sample.length * MAX_SAMPLE_RATIO;
+        Arrays.fill(sample, (byte) 0);
+        return compressible;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+final class ChunkInfo {
+
+    private final long id;
+    private final long offset;
+    private final int storedLength;
+    private final int plainLength;
+    private final byte[] digest;
+    private final byte codec;
+
+    ChunkInfo(long id, long offset, int storedLength, int plainLength) {
+        this(id, offset, storedLength, plainLength, null);
+    }
+
+    ChunkInfo(long id, long offset, int storedLength, int plainLength, byte[] digest) {
+        this(id, offset, storedLength, plainLength, digest, ChunkCodecs.NONE);
+    }
+
+    ChunkInfo(long id, long offset, int storedLength, int plainLength, byte[] digest, byte codec) {
+        this.id = id;
+        this.offset = offset;
+        this.storedLength = storedLength;
+        this.plainLength = plainLength;
+        this.digest = digest;
+        this.codec = codec;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getStoredLength() {
+        return storedLength;
+    }
+
+    int getPlainLength() {
+        return plainLength;
+    }
+
+    byte[] getDigest() {
+        return digest;
+    }
+
+    byte getCodec() {
+        return codec;
+    }
+
+    ChunkInfo relocateTo(long newOffset) {
+        return new ChunkInfo(id, newOffset, storedLength, plainLength, digest, codec);
+    }
+
+    long getFrameLength() {
+        return (long) storedLength + VaultFrame.OVERHEAD;
+    }
+}
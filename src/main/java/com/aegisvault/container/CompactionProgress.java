@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+public final class CompactionProgress {
+
+    private final boolean running;
+    private final long steps;
+    private final long relocatedBytes;
+    private final long reclaimedBytes;
+    private final long packedFiles;
+    private final String lastError;
+
+    CompactionProgress(boolean running, long steps, long relocatedBytes, long reclaimedBytes, long packedFiles,
+                       String lastError) {
+        this.running = running;
+        this.steps = steps;
+        this.relocatedBytes = relocatedBytes;
+        this.reclaimedBytes = reclaimedBytes;
+        this.packedFiles = packedFiles;
+        this.lastError = lastError;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getRelocatedBytes() {
+        return relocatedBytes;
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes;
+    }
+
+    public long getPackedFiles() {
+        return packedFiles;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
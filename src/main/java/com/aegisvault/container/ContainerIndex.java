@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.KeyedHash;
+import com.aegisvault.exception.VaultException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+final class ContainerIndex {
+
+    private final Map<Long, ChunkInfo> chunks;
+    private final Map<String, FileRecord> files;
+    private final Map<ByteBuffer, Long> chunksByDigest;
+    private final Map<Long, Integer> references;
+    private final List<Long> dictionaries;
+    private final Set<String> unpackedSmallFiles;
+    private final Map<Long, Set<String>> packMembers;
+    private final Map<Long, Long> packLiveBytes;
+    private final Set<Long> sparsePacks;
+    private long nextChunkId;
+    private long metadataOffset;
+    private int metadataLength;
+    private long metadataVersion;
+    private FreeSpaceMap freeSpace;
+    private long checkpointSequence;
+    private byte compressionCodec;
+
+    ContainerIndex() {
+        this.chunks = new ConcurrentHashMap<>();
+        this.files = new ConcurrentHashMap<>();
+        this.chunksByDigest = new ConcurrentHashMap<>();
+        this.references = new HashMap<>();
+        this.dictionaries = new ArrayList<>();
+        this.unpackedSmallFiles = new HashSet<>();
+        this.packMembers = new HashMap<>();
+        this.packLiveBytes = new HashMap<>();
+        this.sparsePacks = new HashSet<>();
+        this.nextChunkId = 1;
+        this.freeSpace = new FreeSpaceMap();
+    }
+
+    long getMetadataOffset() {
+        return metadataOffset;
+    }
+
+    long getMetadataVersion() {
+        return metadataVersion;
+    }
+
+    int getMetadataLength() {
+        return metadataLength;
+    }
+
+    void setMetadata(long offset, int length, long version) {
+        this.metadataOffset = offset;
+        this.metadataLength = length;
+        this.metadataVersion = version;
+    }
+
+    long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    void setCheckpointSequence(long sequence) {
+        this.checkpointSequence = sequence;
+    }
+
+    byte getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    void setCompressionCodec(byte codec) {
+        this.compressionCodec = codec;
+    }
+
+    void addDictionary(long chunkId) {
+        dictionaries.add(chunkId);
+    }
+
+    long getActiveDictionary() {
+        return dictionaries.isEmpty() ? 0 : dictionaries.get(dictionaries.size() - 1);
+    }
+
+    int getDictionaryCount() {
+        return dictionaries.size();
+    }
+
+    long allocateExtent(long length) {
+        return freeSpace.allocate(length);
+    }
+
+    void reserveExtent(long offset, long length) {
+        freeSpace.reserve(offset, length);
+    }
+
+    FreeSpaceMap getFreeSpace() {
+        return freeSpace;
+    }
+
+    FreeSpaceMap replaceFreeSpace(FreeSpaceMap replacement) {
+        FreeSpaceMap previous = freeSpace;
+        freeSpace = replacement;
+        return previous;
+    }
+
+    FreeSpaceMap computeFreeSpace(long start, long end, Collection<ChunkInfo> pending) {
+        List<long[]> live = new ArrayList<>(chunks.size() + pending.size() + 1);
+        for (ChunkInfo chunk : chunks.values()) {
+            live.add(new long[]{chunk.getOffset(), chunk.getFrameLength()});
+        }
+        for (ChunkInfo chunk : pending) {
+            live.add(new long[]{chunk.getOffset(), chunk.getFrameLength()});
+        }
+        if (metadataOffset > 0) {
+            live.add(new long[]{metadataOffset, VaultFrame.OVERHEAD + (long) metadataLength});
+        }
+        live.sort(Comparator.comparingLong(extent -> extent[0]));
+
+        FreeSpaceMap map = new FreeSpaceMap();
+        long position = start;
+        for (long[] extent : live) {
+            if (extent[0] >= end) {
+                break;
+            }
+            if (extent[0] > position) {
+                map.add(position, extent[0] - position);
+            }
+            position = Math.max(position, extent[0] + extent[1]);
+        }
+        if (position < end) {
+            map.add(position, end - position);
+        }
+        return map;
+    }
+
+    long getLiveBytes() {
+        long live = metadataOffset > 0 ? VaultFrame.OVERHEAD + (long) metadataLength : 0;
+        for (ChunkInfo chunk : chunks.values()) {
+            live += chunk.getFrameLength();
+        }
+        return live;
+    }
+
+    ContainerIndex copy() {
+        ContainerIndex copy = new ContainerIndex();
+        copy.chunks.putAll(chunks);
+        copy.files.putAll(files);
+        copy.chunksByDigest.putAll(chunksByDigest);
+        copy.references.putAll(references);
+        copy.dictionaries.addAll(dictionaries);
+        copy.unpackedSmallFiles.addAll(unpackedSmallFiles);
+        for (Map.Entry<Long, Set<String>> entry : packMembers.entrySet()) {
+            copy.packMembers.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        copy.packLiveBytes.putAll(packLiveBytes);
+        copy.sparsePacks.addAll(sparsePacks);
+        copy.nextChunkId = nextChunkId;
+        copy.metadataOffset = metadataOffset;
+        copy.metadataLength = metadataLength;
+        copy.metadataVersion = metadataVersion;
+        copy.freeSpace = freeSpace.copy();
+        copy.checkpointSequence = checkpointSequence;
+        copy.compressionCodec = compressionCodec;
+        return copy;
+    }
+
+    long allocateChunkId() {
+        return nextChunkId++;
+    }
+
+    void reserveChunkId(long chunkId) {
+        if (chunkId >= nextChunkId) {
+            nextChunkId = chunkId + 1;
+        }
+    }
+
+    void putChunk(ChunkInfo chunk) {
+        chunks.put(chunk.getId(), chunk);
+        if (chunk.getDigest() != null) {
+            chunksByDigest.put(ByteBuffer.wrap(chunk.getDigest()), chunk.getId());
+        }
+    }
+
+    void relocateChunk(ChunkInfo moved) {
+        ChunkInfo existing = chunks.get(moved.getId());
+        putChunk(existing != null ? existing.relocateTo(moved.getOffset()) : moved);
+    }
+
+    ChunkInfo findChunk(long chunkId) {
+        return chunks.get(chunkId);
+    }
+
+    boolean containsDigest(byte[] digest) {
+        return chunksByDigest.containsKey(ByteBuffer.wrap(digest));
+    }
+
+    ChunkInfo findChunkByDigest(byte[] digest) {
+        Long chunkId = chunksByDigest.get(ByteBuffer.wrap(digest));
+        return chunkId != null ? chunks.get(chunkId) : null;
+    }
+
+    int getReferenceCount(long chunkId) {
+        return references.getOrDefault(chunkId, 0);
+    }
+
+    List<ChunkInfo> getChunksByOffsetDescending() {
+        List<ChunkInfo> sorted = new ArrayList<>(chunks.values());
+        sorted.sort(Comparator.comparingLong(ChunkInfo::getOffset).reversed());
+        return sorted;
+    }
+
+    long getLiveEnd(Collection<ChunkInfo> pending) {
+        long end = metadataOffset > 0 ? metadataOffset + VaultFrame.OVERHEAD + metadataLength : 0;
+        for (ChunkInfo chunk : chunks.values()) {
+            end = Math.max(end, chunk.getOffset() + chunk.getFrameLength());
+        }
+        for (ChunkInfo chunk : pending) {
+            end = Math.max(end, chunk.getOffset() + chunk.getFrameLength());
+        }
+        return end;
+    }
+
+    ChunkInfo getChunk(long chunkId) {
+        ChunkInfo chunk = chunks.get(chunkId);
+        if (chunk == null) {
+            throw new VaultException("Missing chunk " + chunkId + " in vault index");
+        }
+        return chunk;
+    }
+
+    FileRecord getFile(String fileId) {
+        return files.get(fileId);
+    }
+
+    FileRecord putFile(String fileId, FileRecord record) {
+        FileRecord previous = files.put(fileId, record);
+        retainChunks(record);
+        if (previous != null) {
+            untrackPacking(fileId, previous);
+            releaseChunks(previous);
+        }
+        trackPacking(fileId, record);
+        return previous;
+    }
+
+    FileRecord removeFile(String fileId) {
+        FileRecord previous = files.remove(fileId);
+        if (previous != null) {
+            untrackPacking(fileId, previous);
+            releaseChunks(previous);
+        }
+        return previous;
+    }
+
+    List<Map.Entry<String, FileRecord>> getPackCandidates() {
+        List<Map.Entry<String, FileRecord>> candidates = new ArrayList<>();
+        for (String fileId : unpackedSmallFiles) {
+            candidates.add(Map.entry(fileId, files.get(fileId)));
+        }
+        for (long packId : sparsePacks) {
+            for (String fileId : packMembers.get(packId)) {
+                candidates.add(Map.entry(fileId, files.get(fileId)));
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> getChunk(entry.getValue().getChunkIds()[0]).getOffset()));
+        return candidates;
+    }
+
+    private void trackPacking(String fileId, FileRecord record) {
+        if (record.isPacked()) {
+            long packId = record.getChunkIds()[0];
+            packMembers.computeIfAbsent(packId, id -> new HashSet<>()).add(fileId);
+            packLiveBytes.merge(packId, record.getSize(), Long::sum);
+            updateSparsePack(packId);
+        } else if (record.getSize() > 0 && record.getSize() <= VaultContainer.PACK_FILE_LIMIT
+                && record.getChunkCount() == 1) {
+            unpackedSmallFiles.add(fileId);
+        }
+    }
+
+    private void untrackPacking(String fileId, FileRecord record) {
+        if (!record.isPacked()) {
+            unpackedSmallFiles.remove(fileId);
+            return;
+        }
+        long packId = record.getChunkIds()[0];
+        Set<String> members = packMembers.get(packId);
+        if (members != null && members.remove(fileId)) {
+            if (members.isEmpty()) {
+                packMembers.remove(packId);
+                packLiveBytes.remove(packId);
+            } else {
+                packLiveBytes.merge(packId, -record.getSize(), Long::sum);
+            }
+            updateSparsePack(packId);
+        }
+    }
+
+    private void updateSparsePack(long packId) {
+        Long live = packLiveBytes.get(packId);
+        ChunkInfo pack = chunks.get(packId);
+        if (live != null && pack != null && live < pack.getPlainLength() * VaultContainer.SPARSE_PACK_RATIO) {
+            sparsePacks.add(packId);
+        } else {
+            sparsePacks.remove(packId);
+        }
+    }
+
+    Collection<Map.Entry<String, FileRecord>> getFileEntries() {
+        return files.entrySet();
+    }
+
+    List<FileRecord> sampleFiles(int limit, long maxSize) {
+        List<FileRecord> sample = new ArrayList<>();
+        int seen = 0;
+        for (FileRecord record : files.values()) {
+            if (record.getSize() == 0 || record.getSize() > maxSize) {
+                continue;
+            }
+            seen++;
+            if (sample.size() < limit) {
+                sample.add(record);
+            } else {
+                int slot = ThreadLocalRandom.current().nextInt(seen);
+                if (slot < limit) {
+                    sample.set(slot, record);
+                }
+            }
+        }
+        return sample;
+    }
+
+    int getFileCount() {
+        return files.size();
+    }
+
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    private void retainChunks(FileRecord record) {
+        for (long chunkId : record.getChunkIds()) {
+            references.merge(chunkId, 1, Integer::sum);
+        }
+    }
+
+    private void releaseChunks(FileRecord record) {
+        for (long chunkId : record.getChunkIds()) {
+            int remaining = references.getOrDefault(chunkId, 0) - 1;
+            if (remaining > 0) {
+                references.put(chunkId, remaining);
+                continue;
+            }
+            references.remove(chunkId);
+            ChunkInfo released = chunks.remove(chunkId);
+            if (released != null && released.getDigest() != null) {
+                chunksByDigest.remove(ByteBuffer.wrap(released.getDigest()), chunkId);
+            }
+        }
+    }
+
+    byte[] serialize() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeLong(nextChunkId);
+            out.writeInt(chunks.size());
+            for (ChunkInfo chunk : chunks.values()) {
+                out.writeLong(chunk.getId());
+                out.writeLong(chunk.getOffset());
+                out.writeInt(chunk.getStoredLength());
+                out.writeInt(chunk.getPlainLength());
+            }
+            out.writeInt(files.size());
+            for (Map.Entry<String, FileRecord> entry : files.entrySet()) {
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(keyBytes.length);
+                out.write(keyBytes);
+                FileRecord record = entry.getValue();
+                out.writeLong(record.getSize());
+                out.writeInt(record.getChunkCount());
+                for (long chunkId : record.getChunkIds()) {
+                    out.writeLong(chunkId);
+                }
+            }
+            out.writeLong(metadataOffset);
+            out.writeInt(metadataLength);
+            out.writeLong(metadataVersion);
+            freeSpace.writeTo(out);
+            out.writeLong(checkpointSequence);
+            out.writeInt(chunksByDigest.size());
+            for (Map.Entry<ByteBuffer, Long> entry : chunksByDigest.entrySet()) {
+                out.writeLong(entry.getValue());
+                out.write(entry.getKey().array());
+            }
+            out.writeByte(compressionCodec);
+            List<ChunkInfo> compressed = new ArrayList<>();
+            for (ChunkInfo chunk : chunks.values()) {
+                if (chunk.getCodec() != ChunkCodecs.NONE) {
+                    compressed.add(chunk);
+                }
+            }
+            out.writeInt(compressed.size());
+            for (ChunkInfo chunk : compressed) {
+                out.writeLong(chunk.getId());
+                out.writeByte(chunk.getCodec());
+            }
+            out.writeInt(dictionaries.size());
+            for (long dictionary : dictionaries) {
+                out.writeLong(dictionary);
+            }
+            List<Map.Entry<String, FileRecord>> packed = new ArrayList<>();
+            for (Map.Entry<String, FileRecord> entry : files.entrySet()) {
+                if (entry.getValue().isPacked()) {
+                    packed.add(entry);
+                }
+            }
+            out.writeInt(packed.size());
+            for (Map.Entry<String, FileRecord> entry : packed) {
+                byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(keyBytes.length);
+                out.write(keyBytes);
+                out.writeInt(entry.getValue().getPackOffset());
+            }
+        } catch (IOException e) {
+            throw new VaultException("Failed to serialize index", e);
+        }
+        return baos.toByteArray();
+    }
+
+    static ContainerIndex deserialize(byte[] data) {
+        ContainerIndex index = new ContainerIndex();
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+
+        try {
+            index.nextChunkId = buffer.getLong();
+            int chunkCount = buffer.getInt();
+            for (int i = 0; i < chunkCount; i++) {
+                long id = buffer.getLong();
+                long offset = buffer.getLong();
+                int storedLength = buffer.getInt();
+                int plainLength = buffer.getInt();
+                index.chunks.put(id, new ChunkInfo(id, offset, storedLength, plainLength));
+            }
+
+            int fileCount = buffer.getInt();
+            for (int i = 0; i < fileCount; i++) {
+                int keyLength = buffer.getInt();
+                byte[] keyBytes = new byte[keyLength];
+                buffer.get(keyBytes);
+                String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+                long size = buffer.getLong();
+                int fileChunkCount = buffer.getInt();
+                long[] chunkIds = new long[fileChunkCount];
+                for (int j = 0; j < fileChunkCount; j++) {
+                    chunkIds[j] = buffer.getLong();
+                }
+                FileRecord record = new FileRecord(size, chunkIds);
+                index.files.put(key, record);
+                index.retainChunks(record);
+                index.trackPacking(key, record);
+            }
+
+            if (buffer.hasRemaining()) {
+                index.metadataOffset = buffer.getLong();
+                index.metadataLength = buffer.getInt();
+                index.metadataVersion = buffer.getLong();
+                index.freeSpace = FreeSpaceMap.readFrom(buffer);
+                index.checkpointSequence = buffer.getLong();
+            }
+            if (buffer.hasRemaining()) {
+                int digestCount = buffer.getInt();
+                for (int i = 0; i < digestCount; i++) {
+                    long chunkId = buffer.getLong();
+                    byte[] digest = new byte[KeyedHash.DIGEST_SIZE];
+                    buffer.get(digest);
+                    ChunkInfo chunk = index.chunks.get(chunkId);
+                    if (chunk != null) {
+                        index.putChunk(new ChunkInfo(chunkId, chunk.getOffset(), chunk.getStoredLength(),
+                                chunk.getPlainLength(), digest));
+                    }
+                }
+            }
+            if (buffer.hasRemaining()) {
+                index.compressionCodec = buffer.get();
+                int compressedCount = buffer.getInt();
+                for (int i = 0; i < compressedCount; i++) {
+                    long chunkId = buffer.getLong();
+                    byte codec = buffer.get();
+                    ChunkInfo chunk = index.chunks.get(chunkId);
+                    if (chunk != null) {
+                        index.chunks.put(chunkId, new ChunkInfo(chunkId, chunk.getOffset(), chunk.getStoredLength(),
+                                chunk.getPlainLength(), chunk.getDigest(), codec));
+                    }
+                }
+            }
+            if (buffer.hasRemaining()) {
+                int dictionaryCount = buffer.getInt();
+                for (int i = 0; i < dictionaryCount; i++) {
+                    index.dictionaries.add(buffer.getLong());
+                }
+            }
+            if (buffer.hasRemaining()) {
+                int packedCount = buffer.getInt();
+                for (int i = 0; i < packedCount; i++) {
+                    byte[] keyBytes = new byte[buffer.getInt()];
+                    buffer.get(keyBytes);
+                    String key = new String(keyBytes, StandardCharsets.UTF_8);
+                    int packOffset = buffer.getInt();
+                    FileRecord record = index.files.get(key);
+                    if (record != null) {
+                        FileRecord packed = new FileRecord(record.getSize(), record.getChunkIds(), packOffset);
+                        index.untrackPacking(key, record);
+                        index.files.put(key, packed);
+                        index.trackPacking(key, packed);
+                    }
+                }
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new VaultException("Corrupted vault index", e);
+        }
+
+        return index;
+    }
+}
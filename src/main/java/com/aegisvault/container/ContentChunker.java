@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.KeyedHash;
+
+import java.nio.ByteBuffer;
+
+final class ContentChunker {
+
+    static final int MIN_CHUNK_SIZE = 128 * 1024;
+    static final int MAX_CHUNK_SIZE = VaultContainer.CHUNK_SIZE;
+
+    private static final long BOUNDARY_MASK = 0xFFFFC00000000000L;
+    private static final int WINDOW = Long.SIZE;
+
+    private final long[] gear;
+    private long hash;
+    private int scanned;
+
+    ContentChunker(long[] gear) {
+        this.gear = gear;
+    }
+
+    static long[] gearTable(byte[] key) {
+        long[] table = new long[256];
+        ByteBuffer counter = ByteBuffer.allocate(4);
+        for (int block = 0; block < table.length / 4; block++) {
+            counter.clear();
+            counter.putInt(block);
+            ByteBuffer values = ByteBuffer.wrap(KeyedHash.hash(key, counter.array()));
+            for (int i = 0; i < 4; i++) {
+                table[block * 4 + i] = values.getLong();
+            }
+        }
+        return table;
+    }
+
+    int findBoundary(byte[] data, int length) {
+        int position = Math.max(scanned, MIN_CHUNK_SIZE - WINDOW);
+        while (position < length) {
+            hash = (hash << 1) + gear[data[position] & 0xFF];
+            position++;
+            if ((position >= MIN_CHUNK_SIZE && (hash & BOUNDARY_MASK) == 0) || position >= MAX_CHUNK_SIZE) {
+                reset();
+                return position;
+            }
+        }
+        scanned = Math.max(scanned, length);
+        return -1;
+    }
+
+    void reset() {
+        hash = 0;
+        scanned = 0;
+    }
+}
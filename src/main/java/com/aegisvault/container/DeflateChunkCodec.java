@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.exception.VaultException;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public final class DeflateChunkCodec implements ChunkCodec {
+
+    public static final byte ID = 1;
+    public static final byte DICTIONARY_ID = 2;
+
+    private final int level;
+
+    public DeflateChunkCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    public DeflateChunkCodec(int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid deflate level: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) {
+        return compress(data, offset, length, null);
+    }
+
+    public byte[] compress(byte[] data, int offset, int length, byte[] dictionary) {
+        Deflater deflater = new Deflater(level, true);
+        byte[] output = new byte[length + length / 1000 + 64];
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+            int produced = 0;
+            while (!deflater.finished()) {
+                if (produced == output.length) {
+                    byte[] grown = Arrays.copyOf(output, output.length * 2);
+                    Arrays.fill(output, (byte) 0);
+                    output = grown;
+                }
+                produced += deflater.deflate(output, produced, output.length - produced);
+            }
+            return Arrays.copyOf(output, produced);
+        } finally {
+            Arrays.fill(output, (byte) 0);
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int plainLength) {
+        return decompress(data, 0, plainLength, null);
+    }
+
+    public byte[] decompress(byte[] data, int offset, int plainLength, byte[] dictionary) {
+        Inflater inflater = new Inflater(true);
+        try {
+            if (dictionary != null) {
+                inflater.setDictionary(dictionary);
+            }
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] output = new byte[plainLength];
+            int produced = 0;
+            while (produced < plainLength) {
+                int count = inflater.inflate(output, produced, plainLength - produced);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                produced += count;
+            }
+            boolean overrun = !inflater.finished() && inflater.inflate(new byte[1]) > 0;
+            if (produced != plainLength || overrun || !inflater.finished()) {
+                Arrays.fill(output, (byte) 0);
+                throw new VaultException("Decompressed chunk length mismatch");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new VaultException("Corrupted compressed chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
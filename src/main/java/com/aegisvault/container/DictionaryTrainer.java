@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+final class DictionaryTrainer {
+
+    static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int GRAM_LENGTH = 8;
+    private static final int SEGMENT_LENGTH = 128;
+    private static final int TABLE_BITS = 20;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+
+    private DictionaryTrainer() {
+    }
+
+    static byte[] train(List<byte[]> samples, int dictionarySize) {
+        if (dictionarySize <= 0 || dictionarySize > MAX_DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Invalid dictionary size: " + dictionarySize);
+        }
+        int[] frequency = new int[1 << TABLE_BITS];
+        int[] lastSample = new int[1 << TABLE_BITS];
+        Arrays.fill(lastSample, -1);
+        for (int s = 0; s < samples.size(); s++) {
+            byte[] sample = samples.get(s);
+            for (int i = 0; i + GRAM_LENGTH <= sample.length; i++) {
+                int bucket = bucket(sample, i);
+                if (lastSample[bucket] != s) {
+                    lastSample[bucket] = s;
+                    frequency[bucket]++;
+                }
+            }
+        }
+
+        PriorityQueue<Segment> candidates = new PriorityQueue<>((a, b) -> Long.compare(b.score, a.score));
+        for (byte[] sample : samples) {
+            for (int start = 0; start + GRAM_LENGTH <= sample.length; start += SEGMENT_LENGTH / 2) {
+                int end = Math.min(sample.length, start + SEGMENT_LENGTH);
+                Segment segment = new Segment(sample, start, end);
+                segment.score = score(segment, frequency);
+                if (segment.score > 0) {
+                    candidates.add(segment);
+                }
+            }
+        }
+
+        Deque<Segment> selected = new ArrayDeque<>();
+        int size = 0;
+        while (!candidates.isEmpty() && size < dictionarySize) {
+            Segment best = candidates.poll();
+            long current = score(best, frequency);
+            if (current <= 0) {
+                continue;
+            }
+            if (!candidates.isEmpty() && current < candidates.peek().score) {
+                best.score = current;
+                candidates.add(best);
+                continue;
+            }
+            int length = Math.min(best.end - best.start, dictionarySize - size);
+            best.end = best.start + length;
+            selected.addFirst(best);
+            size += length;
+            for (int i = best.start; i + GRAM_LENGTH <= best.end; i++) {
+                frequency[bucket(best.sample, i)] = 0;
+            }
+        }
+
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        for (Segment segment : selected) {
+            dictionary.write(segment.sample, segment.start, segment.end - segment.start);
+        }
+        return dictionary.toByteArray();
+    }
+
+    private static long score(Segment segment, int[] frequency) {
+        long score = 0;
+        for (int i = segment.start; i + GRAM_LENGTH <= segment.end; i++) {
+            int count = frequency[bucket(segment.sample, i)];
+            if (count > 1) {
+                score += count;
+            }
+        }
+        return score;
+    }
+
+    private static int bucket(byte[] data, int offset) {
+        long gram = 0;
+        for (int i = 0; i < GRAM_LENGTH; i++) {
+            gram = (gram << 8) | (data[offset + i] & 0xFF);
+        }
+        gram *= 0x9E3779B97F4A7C15L;
+        return (int) (gram >>> (Long.SIZE - TABLE_BITS)) & TABLE_MASK;
+    }
+
+    private static final class Segment {
+        private final byte[] sample;
+        private final int start;
+        private int end;
+        private long score;
+
+        private Segment(byte[] sample, int start, int end) {
+            this.sample = sample;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+final class FileRecord {
+
+    private final long size;
+    private final long[] chunkIds;
+    private final int packOffset;
+
+    FileRecord(long size, long[] chunkIds) {
+        this(size, chunkIds, -1);
+    }
+
+    FileRecord(long size, long[] chunkIds, int packOffset) {
+        this.size = size;
+        this.chunkIds = chunkIds;
+        this.packOffset = packOffset;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long[] getChunkIds() {
+        return chunkIds;
+    }
+
+    int getPackOffset() {
+        return packOffset;
+    }
+
+    boolean isPacked() {
+        return packOffset >= 0;
+    }
+
+    int getChunkCount() {
+        return chunkIds.length;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+final class FreeSpaceMap {
+
+    private static final Comparator<Extent> BY_SIZE =
+            Comparator.comparingLong(Extent::getLength).thenComparingLong(Extent::getOffset);
+
+    private final NavigableMap<Long, Extent> byOffset;
+    private final TreeSet<Extent> bySize;
+    private long freeBytes;
+
+    FreeSpaceMap() {
+        this.byOffset = new TreeMap<>();
+        this.bySize = new TreeSet<>(BY_SIZE);
+    }
+
+    void add(long offset, long length) {
+        if (length <= 0) {
+            return;
+        }
+        long start = offset;
+        long end = offset + length;
+
+        Map.Entry<Long, Extent> before = byOffset.floorEntry(start);
+        if (before != null && before.getValue().getEnd() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue().getEnd());
+            remove(before.getValue());
+        }
+        Map.Entry<Long, Extent> after = byOffset.ceilingEntry(start);
+        while (after != null && after.getKey() <= end) {
+            end = Math.max(end, after.getValue().getEnd());
+            remove(after.getValue());
+            after = byOffset.ceilingEntry(start);
+        }
+        insert(new Extent(start, end - start));
+    }
+
+    long allocate(long length) {
+        Extent fit = bySize.ceiling(new Extent(-1, length));
+        if (fit == null) {
+            return -1;
+        }
+        remove(fit);
+        if (fit.getLength() > length) {
+            insert(new Extent(fit.getOffset() + length, fit.getLength() - length));
+        }
+        return fit.getOffset();
+    }
+
+    long allocateLowest(long length, long limit) {
+        for (Extent extent : byOffset.values()) {
+            if (extent.getOffset() + length > limit) {
+                return -1;
+            }
+            if (extent.getLength() >= length) {
+                remove(extent);
+                if (extent.getLength() > length) {
+                    insert(new Extent(extent.getOffset() + length, extent.getLength() - length));
+                }
+                return extent.getOffset();
+            }
+        }
+        return -1;
+    }
+
+    void reserve(long offset, long length) {
+        long end = offset + length;
+        Map.Entry<Long, Extent> entry = byOffset.floorEntry(offset);
+        if (entry == null || entry.getValue().getEnd() <= offset) {
+            entry = byOffset.higherEntry(offset);
+        }
+        while (entry != null && entry.getKey() < end) {
+            Extent extent = entry.getValue();
+            remove(extent);
+            if (extent.getOffset() < offset) {
+                insert(new Extent(extent.getOffset(), offset - extent.getOffset()));
+            }
+            if (extent.getEnd() > end) {
+                insert(new Extent(end, extent.getEnd() - end));
+            }
+            entry = byOffset.higherEntry(extent.getOffset());
+        }
+    }
+
+    long getFreeBytes() {
+        return freeBytes;
+    }
+
+    int getExtentCount() {
+        return byOffset.size();
+    }
+
+    FreeSpaceMap copy() {
+        FreeSpaceMap copy = new FreeSpaceMap();
+        for (Extent extent : byOffset.values()) {
+            copy.insert(extent);
+        }
+        return copy;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(byOffset.size());
+        for (Extent extent : byOffset.values()) {
+            out.writeLong(extent.getOffset());
+            out.writeLong(extent.getLength());
+        }
+    }
+
+    static FreeSpaceMap readFrom(ByteBuffer buffer) {
+        FreeSpaceMap map = new FreeSpaceMap();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            map.add(buffer.getLong(), buffer.getLong());
+        }
+        return map;
+    }
+
+    private void insert(Extent extent) {
+        byOffset.put(extent.getOffset(), extent);
+        bySize.add(extent);
+        freeBytes += extent.getLength();
+    }
+
+    private void remove(Extent extent) {
+        byOffset.remove(extent.getOffset());
+        bySize.remove(extent);
+        freeBytes -= extent.getLength();
+    }
+
+    private static final class Extent {
+        private final long offset;
+        private final long length;
+
+        private Extent(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        long getEnd() {
+            return offset + length;
+        }
+    }
+}
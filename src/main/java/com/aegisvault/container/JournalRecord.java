@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.exception.VaultException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+final class JournalRecord {
+
+    static final byte PUT_FILE = 1;
+    static final byte DELETE_FILE = 2;
+    static final byte SET_METADATA = 3;
+    static final byte BATCH = 4;
+    static final byte RELOCATE = 5;
+
+    private final byte operation;
+    private final String fileId;
+    private final FileRecord file;
+    private final ChunkInfo[] newChunks;
+    private final long metadataOffset;
+    private final int metadataLength;
+    private final long metadataVersion;
+    private final JournalRecord[] batch;
+
+    private JournalRecord(byte operation, String fileId, FileRecord file, ChunkInfo[] newChunks,
+                          long metadataOffset, int metadataLength, long metadataVersion, JournalRecord[] batch) {
+        this.operation = operation;
+        this.fileId = fileId;
+        this.file = file;
+        this.newChunks = newChunks;
+        this.metadataOffset = metadataOffset;
+        this.metadataLength = metadataLength;
+        this.metadataVersion = metadataVersion;
+        this.batch = batch;
+    }
+
+    static JournalRecord putFile(String fileId, FileRecord file, ChunkInfo[] newChunks) {
+        return new JournalRecord(PUT_FILE, fileId, file, newChunks, 0, 0, 0, null);
+    }
+
+    static JournalRecord deleteFile(String fileId) {
+        return new JournalRecord(DELETE_FILE, fileId, null, new ChunkInfo[0], 0, 0, 0, null);
+    }
+
+    static JournalRecord setMetadata(long offset, int length, long version) {
+        return new JournalRecord(SET_METADATA, null, null, new ChunkInfo[0], offset, length, version, null);
+    }
+
+    static JournalRecord relocate(List<ChunkInfo> relocated) {
+        return new JournalRecord(RELOCATE, null, null, relocated.toArray(new ChunkInfo[0]), 0, 0, 0, null);
+    }
+
+    static JournalRecord batch(List<JournalRecord> records) {
+        return new JournalRecord(BATCH, null, null, new ChunkInfo[0], 0, 0, 0, records.toArray(new JournalRecord[0]));
+    }
+
+    byte getOperation() {
+        return operation;
+    }
+
+    void applyTo(ContainerIndex index) {
+        switch (operation) {
+            case PUT_FILE:
+                for (ChunkInfo chunk : newChunks) {
+                    index.putChunk(chunk);
+                    index.reserveChunkId(chunk.getId());
+                    index.reserveExtent(chunk.getOffset(), chunk.getFrameLength());
+                }
+                index.putFile(fileId, file);
+                break;
+            case DELETE_FILE:
+                index.removeFile(fileId);
+                break;
+            case SET_METADATA:
+                index.setMetadata(metadataOffset, metadataLength, metadataVersion);
+                index.reserveExtent(metadataOffset, VaultFrame.OVERHEAD + (long) metadataLength);
+                break;
+            case BATCH:
+                for (JournalRecord record : batch) {
+                    record.applyTo(index);
+                }
+                break;
+            case RELOCATE:
+                for (ChunkInfo chunk : newChunks) {
+                    index.relocateChunk(chunk);
+                    index.reserveExtent(chunk.getOffset(), chunk.getFrameLength());
+                }
+                break;
+            default:
+                throw new VaultException("Unknown journal operation: " + operation);
+        }
+    }
+
+    byte[] serialize() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeByte(operation);
+            switch (operation) {
+                case PUT_FILE:
+                    writeFileId(out);
+                    out.writeLong(file.getSize());
+                    out.writeInt(file.getChunkCount());
+                    for (long chunkId : file.getChunkIds()) {
+                        out.writeLong(chunkId);
+                    }
+                    writeChunks(out);
+                    for (ChunkInfo chunk : newChunks) {
+                        byte[] digest = chunk.getDigest();
+                        out.writeByte(digest != null ? digest.length : 0);
+                        if (digest != null) {
+                            out.write(digest);
+                        }
+                    }
+                    for (ChunkInfo chunk : newChunks) {
+                        out.writeByte(chunk.getCodec());
+                    }
+                    out.writeInt(file.getPackOffset());
+                    break;
+                case RELOCATE:
+                    writeChunks(out);
+                    break;
+                case DELETE_FILE:
+                    writeFileId(out);
+                    break;
+                case BATCH:
+                    out.writeInt(batch.length);
+                    for (JournalRecord record : batch) {
+                        byte[] serialized = record.serialize();
+                        out.writeInt(serialized.length);
+                        out.write(serialized);
+                    }
+                    break;
+                default:
+                    out.writeLong(metadataOffset);
+                    out.writeInt(metadataLength);
+                    out.writeLong(metadataVersion);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new VaultException("Failed to serialize journal record", e);
+        }
+        return baos.toByteArray();
+    }
+
+    private void writeChunks(DataOutputStream out) throws IOException {
+        out.writeInt(newChunks.length);
+        for (ChunkInfo chunk : newChunks) {
+            out.writeLong(chunk.getId());
+            out.writeLong(chunk.getOffset());
+            out.writeInt(chunk.getStoredLength());
+            out.writeInt(chunk.getPlainLength());
+        }
+    }
+
+    private void writeFileId(DataOutputStream out) throws IOException {
+        byte[] keyBytes = fileId.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+    }
+
+    static JournalRecord deserialize(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+        try {
+            byte operation = buffer.get();
+            switch (operation) {
+                case PUT_FILE: {
+                    String fileId = readFileId(buffer);
+                    long size = buffer.getLong();
+                    long[] chunkIds = new long[buffer.getInt()];
+                    for (int i = 0; i < chunkIds.length; i++) {
+                        chunkIds[i] = buffer.getLong();
+                    }
+                    ChunkInfo[] chunks = readChunks(buffer);
+                    for (int i = 0; i < chunks.length && buffer.hasRemaining(); i++) {
+                        byte[] digest = new byte[buffer.get() & 0xFF];
+                        buffer.get(digest);
+                        if (digest.length > 0) {
+                            ChunkInfo chunk = chunks[i];
+                            chunks[i] = new ChunkInfo(chunk.getId(), chunk.getOffset(), chunk.getStoredLength(),
+                                    chunk.getPlainLength(), digest);
+                        }
+                    }
+                    for (int i = 0; i < chunks.length && buffer.hasRemaining(); i++) {
+                        ChunkInfo chunk = chunks[i];
+                        chunks[i] = new ChunkInfo(chunk.getId(), chunk.getOffset(), chunk.getStoredLength(),
+                                chunk.getPlainLength(), chunk.getDigest(), buffer.get());
+                    }
+                    int packOffset = buffer.hasRemaining() ? buffer.getInt() : -1;
+                    return putFile(fileId, new FileRecord(size, chunkIds, packOffset), chunks);
+                }
+                case RELOCATE:
+                    return relocate(List.of(readChunks(buffer)));
+                case DELETE_FILE:
+                    return deleteFile(readFileId(buffer));
+                case SET_METADATA:
+                    return setMetadata(buffer.getLong(), buffer.getInt(), buffer.getLong());
+                case BATCH: {
+                    JournalRecord[] records = new JournalRecord[buffer.getInt()];
+                    for (int i = 0; i < records.length; i++) {
+                        byte[] serialized = new byte[buffer.getInt()];
+                        buffer.get(serialized);
+                        records[i] = deserialize(serialized);
+                    }
+                    return batch(List.of(records));
+                }
+                default:
+                    throw new VaultException("Unknown journal operation: " + operation);
+            }
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new VaultException("Corrupted journal record", e);
+        }
+    }
+
+    private static ChunkInfo[] readChunks(ByteBuffer buffer) {
+        ChunkInfo[] chunks = new ChunkInfo[buffer.getInt()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new ChunkInfo(buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt());
+        }
+        return chunks;
+    }
+
+    private static String readFileId(ByteBuffer buffer) {
+        byte[] keyBytes = new byte[buffer.getInt()];
+        buffer.get(keyBytes);
+        return new String(keyBytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+final class ReadAhead implements Closeable {
+
+    interface ChunkLoader {
+        byte[] load(ChunkInfo chunk) throws IOException;
+    }
+
+    private final ChunkInfo[] chunks;
+    private final ChunkLoader loader;
+    private final Executor executor;
+    private final int maxWindow;
+    private final Map<Integer, Prefetch> pending = new HashMap<>();
+    private int window;
+    private int lastIndex = -1;
+
+    ReadAhead(ChunkInfo[] chunks, ChunkLoader loader, Executor executor, int maxWindow) {
+        this.chunks = chunks;
+        this.loader = loader;
+        this.executor = executor;
+        this.maxWindow = maxWindow;
+    }
+
+    byte[] get(int chunkIndex) throws IOException {
+        if (chunkIndex == lastIndex + 1) {
+            window = Math.min(Math.max(1, window * 2), maxWindow);
+        } else {
+            window /= 2;
+        }
+        lastIndex = chunkIndex;
+
+        Prefetch prefetched = pending.remove(chunkIndex);
+        discardOutsideWindow(chunkIndex);
+        schedule(chunkIndex);
+
+        byte[] plain = prefetched != null ? prefetched.take() : null;
+        return plain != null ? plain : loader.load(chunks[chunkIndex]);
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    @Override
+    public void close() {
+        for (Prefetch prefetch : pending.values()) {
+            prefetch.discard();
+        }
+        pending.clear();
+    }
+
+    private void discardOutsideWindow(int chunkIndex) {
+        Iterator<Map.Entry<Integer, Prefetch>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Prefetch> entry = iterator.next();
+            if (entry.getKey() <= chunkIndex || entry.getKey() > chunkIndex + window) {
+                entry.getValue().discard();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void schedule(int chunkIndex) {
+        int end = Math.min(chunks.length - 1, chunkIndex + window);
+        for (int next = chunkIndex + 1; next <= end; next++) {
+            if (pending.containsKey(next)) {
+                continue;
+            }
+            Prefetch prefetch = new Prefetch(chunks[next]);
+            try {
+                executor.execute(prefetch);
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+            pending.put(next, prefetch);
+        }
+    }
+
+    private final class Prefetch implements Runnable {
+        private final ChunkInfo chunk;
+        private byte[] data;
+        private boolean done;
+        private boolean discarded;
+
+        private Prefetch(ChunkInfo chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (discarded) {
+                    return;
+                }
+            }
+            byte[] plain = null;
+            try {
+                plain = loader.load(chunk);
+            } catch (IOException | RuntimeException ignored) {
+            }
+            synchronized (this) {
+                if (discarded) {
+                    zero(plain);
+                } else {
+                    data = plain;
+                }
+                done = true;
+                notifyAll();
+            }
+        }
+
+        private synchronized byte[] take() throws InterruptedIOException {
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    discard();
+                    throw new InterruptedIOException("Interrupted while waiting for read-ahead");
+                }
+            }
+            byte[] plain = data;
+            data = null;
+            return plain;
+        }
+
+        private synchronized void discard() {
+            discarded = true;
+            zero(data);
+            data = null;
+        }
+    }
+
+    private static void zero(byte[] data) {
+        if (data != null) {
+            Arrays.fill(data, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+public final class SpaceStats {
+
+    private final long fileSize;
+    private final long liveBytes;
+    private final long reusableBytes;
+    private final int freeExtentCount;
+
+    SpaceStats(long fileSize, long liveBytes, long reusableBytes, int freeExtentCount) {
+        this.fileSize = fileSize;
+        this.liveBytes = liveBytes;
+        this.reusableBytes = reusableBytes;
+        this.freeExtentCount = freeExtentCount;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public long getDeadBytes() {
+        return fileSize - liveBytes;
+    }
+
+    public long getReusableBytes() {
+        return reusableBytes;
+    }
+
+    public int getFreeExtentCount() {
+        return freeExtentCount;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class VaultCompactor implements Closeable {
+
+    public static final long DEFAULT_STEP_BYTES = 8L * 1024 * 1024;
+    public static final long DEFAULT_INTERVAL_MS = 1000;
+    public static final long DEFAULT_MIN_DEAD_BYTES = 4L * 1024 * 1024;
+
+    private final VaultContainer container;
+    private final long stepBytes;
+    private final long intervalMs;
+    private final long minDeadBytes;
+    private final AtomicLong steps = new AtomicLong();
+    private final AtomicLong relocatedBytes = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private final AtomicLong packedFiles = new AtomicLong();
+    private volatile String lastError;
+    private ScheduledExecutorService executor;
+
+    public VaultCompactor(VaultContainer container) {
+        this(container, DEFAULT_STEP_BYTES, DEFAULT_INTERVAL_MS, DEFAULT_MIN_DEAD_BYTES);
+    }
+
+    public VaultCompactor(VaultContainer container, long stepBytes, long intervalMs, long minDeadBytes) {
+        if (stepBytes <= 0 || intervalMs <= 0 || minDeadBytes < 0) {
+            throw new IllegalArgumentException("Invalid compaction throttle");
+        }
+        this.container = container;
+        this.stepBytes = stepBytes;
+        this.intervalMs = intervalMs;
+        this.minDeadBytes = minDeadBytes;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "VaultCompactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::scheduledStep, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = executor;
+            executor = null;
+        }
+        if (stopping == null) {
+            return;
+        }
+        stopping.shutdown();
+        try {
+            stopping.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    public boolean step() {
+        return step(minDeadBytes);
+    }
+
+    public long compactFully() {
+        long reclaimed = reclaimedBytes.get();
+        while (step(0)) {
+        }
+        return reclaimedBytes.get() - reclaimed;
+    }
+
+    private boolean step(long threshold) {
+        if (!container.isOpen()) {
+            return false;
+        }
+        if (container.shouldRetrainDictionary()) {
+            container.trainDictionary();
+        }
+        int packed = container.packSmallFiles(stepBytes);
+        packedFiles.addAndGet(packed);
+        SpaceStats before = container.getSpaceStats();
+        if (before.getDeadBytes() < threshold) {
+            return packed > 0;
+        }
+        long moved = container.compactStep(stepBytes);
+        long reclaimed = Math.max(0, before.getFileSize() - container.getSpaceStats().getFileSize());
+        steps.incrementAndGet();
+        relocatedBytes.addAndGet(moved);
+        reclaimedBytes.addAndGet(reclaimed);
+        return packed > 0 || moved > 0 || reclaimed > 0;
+    }
+
+    public CompactionProgress getProgress() {
+        return new CompactionProgress(isRunning(), steps.get(), relocatedBytes.get(),
+                reclaimedBytes.get(), packedFiles.get(), lastError);
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void scheduledStep() {
+        try {
+            step();
+            lastError = null;
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+        }
+    }
+}
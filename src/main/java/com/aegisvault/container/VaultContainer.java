@@ -17,45 +17,108 @@ package com.aegisvault.container;
 
 import com.aegisvault.crypto.AesGcmCipher;
 import com.aegisvault.crypto.Argon2KeyDeriver;
+import com.aegisvault.crypto.KeyedHash;
 import com.aegisvault.crypto.SecureRandomProvider;
 import com.aegisvault.exception.AuthenticationException;
 import com.aegisvault.exception.CryptoException;
 import com.aegisvault.exception.VaultException;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class VaultContainer implements Closeable {
 
+    public static final int CHUNK_SIZE = 1024 * 1024;
+    public static final int MAX_IN_MEMORY_FILE_SIZE = Integer.MAX_VALUE - 8;
+    public static final long DEFAULT_CHUNK_CACHE_BYTES = 32L * 1024 * 1024;
+    public static final int DEFAULT_READ_AHEAD_CHUNKS = 4;
+    public static final int MAX_PARALLEL_READ_CHUNKS = 32;
+
     private static final int ENCRYPTED_VAULT_KEY_SIZE = SecureRandomProvider.IV_SIZE_BYTES + SecureRandomProvider.KEY_SIZE_BYTES + 16;
     private static final int METADATA_BLOCK_OFFSET = VaultHeader.HEADER_SIZE + ENCRYPTED_VAULT_KEY_SIZE;
+    private static final byte[] INDEX_AAD = "AEGISVLT-INDEX".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] METADATA_AAD_PREFIX = "AEGISVLT-META".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RECORD_AAD_PREFIX = "AEGISVLT-RECORD".getBytes(StandardCharsets.US_ASCII);
+    private static final int CHECKPOINT_RECORD_LIMIT = 1024;
+    private static final long CHECKPOINT_BYTE_LIMIT = 256L * 1024 * 1024;
+    private static final int SMALL_CHUNK_LIMIT = 64 * 1024;
+    private static final int MIN_WRITE_BUFFER = 16 * 1024;
+    private static final int DICTIONARY_SAMPLE_FILES = 1024;
+    private static final int DICTIONARY_SAMPLE_BYTES = 16 * 1024;
+    private static final int MIN_DICTIONARY_SAMPLES = 8;
+    private static final int DICTIONARY_RETRAIN_CHUNKS = 4096;
+    static final int PACK_FILE_LIMIT = 16 * 1024;
+    private static final int PACK_SIZE = 128 * 1024;
+    static final double SPARSE_PACK_RATIO = 0.5;
+    private static final DeflateChunkCodec DICTIONARY_CODEC = new DeflateChunkCodec();
 
     private final Path vaultPath;
-    private boolean open;
+    private volatile boolean open;
     private VaultHeader header;
-    private byte[] vaultKey;
-    private Map<String, byte[]> fileData;
+    private volatile byte[] vaultKey;
+    private byte[] dedupKey;
+    private long[] chunkGear;
+    private volatile ContainerIndex index;
     private RandomAccessFile raf;
-    private FileChannel channel;
+    private volatile FileChannel channel;
     private FileLock lock;
+    private long journalStart;
+    private int journalRecords;
+    private List<JournalRecord> batchRecords;
+    private volatile ContainerIndex batchSnapshot;
+    private volatile Thread batchOwner;
+    private final Set<ChunkOutputStream> activeWriters = new HashSet<>();
+    private final Set<FileSnapshot> activeReaders = ConcurrentHashMap.newKeySet();
+    private final Map<Long, byte[]> dictionaries = new ConcurrentHashMap<>();
+    private final ChunkCache chunkCache = new ChunkCache(DEFAULT_CHUNK_CACHE_BYTES);
+    private volatile int readAheadChunks = DEFAULT_READ_AHEAD_CHUNKS;
+    private volatile ForkJoinPool cryptoPool = ForkJoinPool.commonPool();
+    private final Object readAheadLock = new Object();
+    private ExecutorService readAheadExecutor;
+    private int smallChunksSinceTraining;
+    private boolean packingDirty = true;
 
     public VaultContainer(Path vaultPath) {
         this.vaultPath = vaultPath;
         this.open = false;
-        this.fileData = new HashMap<>();
+        this.index = new ContainerIndex();
     }
 
-    public void create(char[] password) {
+    public synchronized void create(char[] password) {
         if (password == null || password.length == 0) {
             throw new IllegalArgumentException("Password must not be null or empty");
         }
@@ -73,11 +136,12 @@ public class VaultContainer implements Closeable {
             masterKey = Argon2KeyDeriver.deriveKey(password, salt);
 
             this.vaultKey = SecureRandomProvider.generateKey();
+            deriveChunkKeys();
 
             byte[] encryptedVaultKey = AesGcmCipher.encrypt(vaultKey, masterKey);
 
-            byte[] emptyMetadata = serializeMetadata(new HashMap<>());
-            byte[] encryptedMetadata = AesGcmCipher.encrypt(emptyMetadata, vaultKey);
+            byte[] emptyIndex = new ContainerIndex().serialize();
+            byte[] encryptedIndex = AesGcmCipher.encrypt(emptyIndex, vaultKey, INDEX_AAD);
 
             this.raf = new RandomAccessFile(vaultPath.toFile(), "rw");
             this.channel = raf.getChannel();
@@ -87,18 +151,16 @@ public class VaultContainer implements Closeable {
                 throw new VaultException("Cannot acquire lock on vault file");
             }
 
+            header.setIndexOffset(METADATA_BLOCK_OFFSET);
             channel.write(ByteBuffer.wrap(header.toBytes()));
             channel.write(ByteBuffer.wrap(encryptedVaultKey));
-
-            ByteBuffer metadataLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
-            metadataLengthBuffer.putInt(encryptedMetadata.length);
-            metadataLengthBuffer.flip();
-            channel.write(metadataLengthBuffer);
-            channel.write(ByteBuffer.wrap(encryptedMetadata));
+            VaultFrame.write(channel, METADATA_BLOCK_OFFSET, VaultFrame.TYPE_INDEX, encryptedIndex);
 
             channel.force(true);
 
-            this.fileData = new HashMap<>();
+            this.index = new ContainerIndex();
+            this.journalStart = METADATA_BLOCK_OFFSET + VaultFrame.OVERHEAD + encryptedIndex.length;
+            this.journalRecords = 0;
             this.open = true;
         } catch (IOException e) {
             throw new VaultException("Failed to create vault file", e);
@@ -108,7 +170,7 @@ public class VaultContainer implements Closeable {
         }
     }
 
-    public void open(char[] password) {
+    public synchronized void open(char[] password) {
         if (password == null || password.length == 0) {
             throw new IllegalArgumentException("Password must not be null or empty");
         }
@@ -146,24 +208,17 @@ public class VaultContainer implements Closeable {
             } catch (CryptoException e) {
                 throw new AuthenticationException("Invalid password or corrupted vault");
             }
+            deriveChunkKeys();
 
-            ByteBuffer metadataLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
-            readFully(channel, metadataLengthBuffer);
-            metadataLengthBuffer.flip();
-            int metadataLength = metadataLengthBuffer.getInt();
-
-            if (metadataLength < 0 || metadataLength > 100 * 1024 * 1024) {
-                throw new VaultException("Invalid metadata length: " + metadataLength);
+            if (header.isLegacy()) {
+                upgradeLegacyFormat(readLegacyMetadata());
+            } else {
+                long indexOffset = header.getIndexOffset();
+                byte[] encryptedIndex = readIndexFrame(indexOffset);
+                this.index = ContainerIndex.deserialize(AesGcmCipher.decrypt(encryptedIndex, vaultKey, INDEX_AAD));
+                replayJournal(indexOffset + VaultFrame.OVERHEAD + encryptedIndex.length);
             }
 
-            ByteBuffer encryptedMetadataBuffer = ByteBuffer.allocate(metadataLength);
-            readFully(channel, encryptedMetadataBuffer);
-            encryptedMetadataBuffer.flip();
-            byte[] encryptedMetadata = new byte[metadataLength];
-            encryptedMetadataBuffer.get(encryptedMetadata);
-            byte[] decryptedMetadata = AesGcmCipher.decrypt(encryptedMetadata, vaultKey);
-            this.fileData = deserializeMetadata(decryptedMetadata);
-
             this.open = true;
             success = true;
         } catch (IOException e) {
@@ -177,7 +232,20 @@ public class VaultContainer implements Closeable {
         }
     }
 
+    private void deriveChunkKeys() {
+        this.dedupKey = KeyedHash.deriveKey(vaultKey, "AEGISVLT-DEDUP");
+        byte[] gearKey = KeyedHash.deriveKey(vaultKey, "AEGISVLT-CDC");
+        this.chunkGear = ContentChunker.gearTable(gearKey);
+        Arrays.fill(gearKey, (byte) 0);
+    }
+
     private void closeResources() {
+        synchronized (readAheadLock) {
+            if (readAheadExecutor != null) {
+                readAheadExecutor.shutdown();
+                readAheadExecutor = null;
+            }
+        }
         try {
             if (lock != null) {
                 lock.release();
@@ -206,32 +274,791 @@ public class VaultContainer implements Closeable {
     }
 
     public byte[] readFile(String fileId) {
-        ensureOpen();
-        byte[] encrypted = fileData.get(fileId);
-        if (encrypted == null) {
+        FileSnapshot snapshot = pinFile(fileId);
+        if (snapshot == null) {
             return null;
         }
-        return AesGcmCipher.decrypt(encrypted, vaultKey);
+        try {
+            if (snapshot.record.getSize() > MAX_IN_MEMORY_FILE_SIZE) {
+                throw new VaultException("File is too large to read into memory: " + snapshot.record.getSize() + " bytes");
+            }
+            return readContent(snapshot.record, snapshot.chunks, MAX_IN_MEMORY_FILE_SIZE);
+        } catch (IOException e) {
+            throw new VaultException("Failed to read file", e);
+        } finally {
+            activeReaders.remove(snapshot);
+        }
     }
 
-    public void writeFile(String fileId, byte[] content) {
+    public long readFile(String fileId, OutputStream target) {
+        FileSnapshot snapshot = pinFile(fileId);
+        if (snapshot == null) {
+            throw new VaultException("File not found in vault: " + fileId);
+        }
+        byte[] content = null;
+        try {
+            if (snapshot.record.isPacked()) {
+                content = readContent(snapshot.record, snapshot.chunks, MAX_IN_MEMORY_FILE_SIZE);
+                target.write(content);
+                return content.length;
+            }
+            try (ReadAhead readAhead = newParallelReadAhead(snapshot.chunks)) {
+                long written = 0;
+                for (int i = 0; i < snapshot.chunks.length; i++) {
+                    byte[] plain = readAhead.get(i);
+                    target.write(plain);
+                    written += plain.length;
+                    zero(plain);
+                }
+                return written;
+            }
+        } catch (IOException e) {
+            throw new VaultException("Failed to read file", e);
+        } finally {
+            zero(content);
+            activeReaders.remove(snapshot);
+        }
+    }
+
+    public InputStream openRead(String fileId) {
+        return Channels.newInputStream(openChannel(fileId));
+    }
+
+    public SeekableByteChannel openChannel(String fileId) {
+        return openChannel(fileId, readAheadChunks);
+    }
+
+    private ChunkChannel openChannel(String fileId, int readAheadWindow) {
+        FileSnapshot snapshot = pinFile(fileId);
+        if (snapshot == null) {
+            throw new VaultException("File not found in vault: " + fileId);
+        }
+        try {
+            return new ChunkChannel(snapshot, newReadAhead(snapshot.chunks, readAheadWindow));
+        } catch (RuntimeException e) {
+            activeReaders.remove(snapshot);
+            throw e;
+        }
+    }
+
+    public byte[] readRange(String fileId, long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        try (SeekableByteChannel rangeChannel = openChannel(fileId, 0)) {
+            long available = Math.max(0, rangeChannel.size() - offset);
+            ByteBuffer range = ByteBuffer.allocate((int) Math.min(length, available));
+            rangeChannel.position(offset);
+            rangeChannel.read(range);
+            return range.array();
+        } catch (IOException e) {
+            throw new VaultException("Failed to read file range", e);
+        }
+    }
+
+    public boolean containsFile(String fileId) {
+        ensureOpen();
+        return readView().getFile(fileId) != null;
+    }
+
+    public long getFileSize(String fileId) {
+        ensureOpen();
+        FileRecord record = readView().getFile(fileId);
+        if (record == null) {
+            throw new VaultException("File not found in vault: " + fileId);
+        }
+        return record.getSize();
+    }
+
+    public synchronized void writeFile(String fileId, byte[] content) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content must not be null");
+        }
+        writeFile(fileId, new ByteArrayInputStream(content));
+    }
+
+    public synchronized long writeFile(String fileId, InputStream content) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content must not be null");
+        }
+        ChunkOutputStream out = openWrite(fileId);
+        try {
+            out.transferFrom(content);
+            out.close();
+            return out.getSize();
+        } catch (IOException e) {
+            out.abort();
+            throw new VaultException("Failed to write file", e);
+        } catch (RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+    }
+
+    public synchronized ChunkOutputStream openWrite(String fileId) {
         ensureOpen();
         if (fileId == null || fileId.isEmpty()) {
             throw new IllegalArgumentException("File ID must not be null or empty");
         }
-        byte[] encrypted = AesGcmCipher.encrypt(content, vaultKey);
-        fileData.put(fileId, encrypted);
-        persistMetadata();
+        return new ChunkOutputStream(fileId);
+    }
+
+    public synchronized void writeRange(String fileId, long offset, byte[] data) {
+        ensureOpen();
+        if (fileId == null || fileId.isEmpty()) {
+            throw new IllegalArgumentException("File ID must not be null or empty");
+        }
+        if (data == null) {
+            throw new IllegalArgumentException("Data must not be null");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+
+        FileRecord record = index.getFile(fileId);
+        if (record != null && record.isPacked()) {
+            record = unpack(fileId, record);
+        }
+        ChunkInfo[] chunks = resolveChunks(record);
+        long[] starts = chunkStarts(chunks);
+        long size = record != null ? record.getSize() : 0;
+        long end = offset + data.length;
+        if (data.length == 0 && offset <= size) {
+            return;
+        }
+
+        long regionStart = Math.min(offset, size);
+        int first;
+        if (regionStart < size) {
+            first = locateChunk(starts, regionStart);
+        } else if (chunks.length > 0 && chunks[chunks.length - 1].getPlainLength() < CHUNK_SIZE) {
+            first = chunks.length - 1;
+        } else {
+            first = chunks.length;
+        }
+        int last = end >= size ? chunks.length - 1 : locateChunk(starts, end - 1);
+
+        ChunkOutputStream out = new ChunkOutputStream(fileId);
+        byte[] firstPlain = null;
+        byte[] lastPlain = null;
+        try {
+            if (first < chunks.length) {
+                int headLength = (int) (regionStart - starts[first]);
+                if (headLength > 0) {
+                    firstPlain = readChunk(chunks[first]);
+                    out.write(firstPlain, 0, headLength);
+                }
+            }
+            for (long gap = offset - size; gap > 0; ) {
+                int count = (int) Math.min(gap, CHUNK_SIZE);
+                out.write(new byte[count]);
+                gap -= count;
+            }
+            out.write(data);
+            if (last >= first && end < size) {
+                lastPlain = last == first && firstPlain != null ? firstPlain : readChunk(chunks[last]);
+                int tailStart = (int) (end - starts[last]);
+                out.write(lastPlain, tailStart, lastPlain.length - tailStart);
+            }
+
+            FileRecord region = out.finish();
+            long[] chunkIds = spliceChunks(chunks, first, last, region.getChunkIds());
+            commitFile(fileId, new FileRecord(Math.max(size, end), chunkIds), out.writtenChunkIds());
+        } catch (IOException e) {
+            out.abort();
+            throw new VaultException("Failed to write file range", e);
+        } catch (RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            zero(firstPlain);
+            zero(lastPlain);
+        }
+    }
+
+    public synchronized void append(String fileId, byte[] data) {
+        ensureOpen();
+        FileRecord record = index.getFile(fileId);
+        writeRange(fileId, record != null ? record.getSize() : 0, data);
+    }
+
+    public synchronized void truncate(String fileId, long newSize) {
+        ensureOpen();
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Size must not be negative");
+        }
+        FileRecord record = index.getFile(fileId);
+        if (record == null || newSize >= record.getSize()) {
+            return;
+        }
+        if (record.isPacked()) {
+            try {
+                commitFile(fileId, new FileRecord(newSize, record.getChunkIds(), record.getPackOffset()), new long[0]);
+            } catch (IOException e) {
+                throw new VaultException("Failed to truncate file", e);
+            }
+            return;
+        }
+
+        ChunkInfo[] chunks = resolveChunks(record);
+        long[] starts = chunkStarts(chunks);
+        byte[] plain = null;
+        try {
+            long[] chunkIds;
+            long[] newChunkIds = new long[0];
+            if (newSize == 0) {
+                chunkIds = new long[0];
+            } else {
+                int last = locateChunk(starts, newSize - 1);
+                int keep = (int) (newSize - starts[last]);
+                if (keep == chunks[last].getPlainLength()) {
+                    chunkIds = spliceChunks(chunks, last + 1, chunks.length - 1, new long[0]);
+                } else {
+                    plain = readChunk(chunks[last]);
+                    ChunkOutputStream out = new ChunkOutputStream(fileId);
+                    out.write(plain, 0, keep);
+                    chunkIds = spliceChunks(chunks, last, chunks.length - 1, out.finish().getChunkIds());
+                    newChunkIds = out.writtenChunkIds();
+                }
+            }
+            commitFile(fileId, new FileRecord(newSize, chunkIds), newChunkIds);
+        } catch (IOException e) {
+            throw new VaultException("Failed to truncate file", e);
+        } finally {
+            zero(plain);
+        }
+    }
+
+    public synchronized byte[] readMetadata() {
+        ensureOpen();
+        long offset = index.getMetadataOffset();
+        if (offset == 0) {
+            return null;
+        }
+        try {
+            if (offset < METADATA_BLOCK_OFFSET || offset >= channel.size()) {
+                throw new VaultException("Invalid metadata offset: " + offset);
+            }
+            byte[] encrypted = VaultFrame.read(channel, offset, VaultFrame.TYPE_METADATA);
+            return AesGcmCipher.decrypt(encrypted, vaultKey, metadataAad(index.getMetadataVersion()));
+        } catch (IOException e) {
+            throw new VaultException("Failed to read vault metadata", e);
+        }
+    }
+
+    public synchronized long writeMetadata(byte[] metadata) {
+        ensureOpen();
+        if (metadata == null) {
+            throw new IllegalArgumentException("Metadata must not be null");
+        }
+        long version = index.getMetadataVersion() + 1;
+        try {
+            byte[] encrypted = AesGcmCipher.encrypt(metadata, vaultKey, metadataAad(version));
+            long offset = VaultFrame.append(channel, VaultFrame.TYPE_METADATA, encrypted);
+            index.setMetadata(offset, encrypted.length, version);
+            logRecord(JournalRecord.setMetadata(offset, encrypted.length, version));
+            return version;
+        } catch (IOException e) {
+            throw new VaultException("Failed to write vault metadata", e);
+        }
+    }
+
+    public synchronized long getMetadataVersion() {
+        ensureOpen();
+        return index.getMetadataVersion();
+    }
+
+    public synchronized void beginBatch() {
+        ensureOpen();
+        if (batchRecords != null) {
+            throw new IllegalStateException("A batch is already active");
+        }
+        batchSnapshot = index.copy();
+        batchOwner = Thread.currentThread();
+        batchRecords = new ArrayList<>();
+    }
+
+    public synchronized void commitBatch() {
+        ensureBatch();
+        List<JournalRecord> records = batchRecords;
+        ContainerIndex snapshot = batchSnapshot;
+        batchRecords = null;
+        try {
+            if (!records.isEmpty()) {
+                logRecord(JournalRecord.batch(records));
+            }
+        } catch (IOException e) {
+            index = snapshot;
+            chunkCache.clear();
+            throw new VaultException("Failed to commit batch", e);
+        } finally {
+            batchSnapshot = null;
+            batchOwner = null;
+        }
     }
 
-    public void deleteFile(String fileId) {
+    public synchronized void rollbackBatch() {
+        ensureBatch();
+        chunkCache.clear();
+        index = batchSnapshot;
+        batchRecords = null;
+        batchSnapshot = null;
+        batchOwner = null;
+    }
+
+    public synchronized boolean isBatchActive() {
+        return batchRecords != null;
+    }
+
+    private void ensureBatch() {
+        ensureOpen();
+        if (batchRecords == null) {
+            throw new IllegalStateException("No batch is active");
+        }
+    }
+
+    public synchronized void setCompressionCodec(byte codecId) {
+        ensureOpen();
+        if (batchRecords != null) {
+            throw new IllegalStateException("Cannot change compression during a batch");
+        }
+        if (!ChunkCodecs.isRegistered(codecId)) {
+            throw new IllegalArgumentException("Unknown chunk codec: " + codecId);
+        }
+        if (index.getCompressionCodec() == codecId) {
+            return;
+        }
+        byte previous = index.getCompressionCodec();
+        index.setCompressionCodec(codecId);
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            index.setCompressionCodec(previous);
+            throw new VaultException("Failed to store compression setting", e);
+        }
+    }
+
+    public synchronized byte getCompressionCodec() {
+        ensureOpen();
+        return index.getCompressionCodec();
+    }
+
+    public synchronized boolean trainDictionary() {
+        ensureOpen();
+        if (batchRecords != null) {
+            throw new IllegalStateException("Cannot train a dictionary during a batch");
+        }
+        List<byte[]> samples = new ArrayList<>();
+        byte[] dictionary = null;
+        try {
+            for (FileRecord record : index.sampleFiles(DICTIONARY_SAMPLE_FILES, SMALL_CHUNK_LIMIT)) {
+                samples.add(readContent(record, DICTIONARY_SAMPLE_BYTES));
+            }
+            if (samples.size() < MIN_DICTIONARY_SAMPLES) {
+                return false;
+            }
+            dictionary = DictionaryTrainer.train(samples, DictionaryTrainer.MAX_DICTIONARY_SIZE);
+            if (dictionary.length == 0) {
+                return false;
+            }
+
+            long chunkId = index.allocateChunkId();
+            byte[] encrypted = AesGcmCipher.encrypt(dictionary, vaultKey, chunkAad(chunkId, ChunkCodecs.NONE));
+            long offset = index.allocateExtent(VaultFrame.OVERHEAD + encrypted.length);
+            if (offset < 0) {
+                offset = channel.size();
+            }
+            VaultFrame.write(channel, offset, VaultFrame.TYPE_CHUNK, encrypted);
+            index.putChunk(new ChunkInfo(chunkId, offset, encrypted.length, dictionary.length));
+            index.addDictionary(chunkId);
+            dictionaries.put(chunkId, dictionary);
+            dictionary = null;
+            smallChunksSinceTraining = 0;
+            checkpoint();
+            return true;
+        } catch (IOException e) {
+            throw new VaultException("Failed to store compression dictionary", e);
+        } finally {
+            zero(dictionary);
+            for (byte[] sample : samples) {
+                zero(sample);
+            }
+        }
+    }
+
+    public synchronized int getDictionaryCount() {
+        ensureOpen();
+        return index.getDictionaryCount();
+    }
+
+    synchronized boolean shouldRetrainDictionary() {
+        return open && index.getDictionaryCount() > 0 && smallChunksSinceTraining >= DICTIONARY_RETRAIN_CHUNKS;
+    }
+
+    private byte[] readContent(FileRecord record, int limit) throws IOException {
+        return readContent(record, resolveChunks(record), limit);
+    }
+
+    private byte[] readContent(FileRecord record, ChunkInfo[] chunks, int limit) throws IOException {
+        byte[] content = new byte[(int) Math.min(record.getSize(), limit)];
+        if (record.isPacked()) {
+            byte[] pack = fetchChunk(chunks[0]);
+            try {
+                if (record.getPackOffset() + record.getSize() > pack.length) {
+                    throw new VaultException("Packed file exceeds its pack");
+                }
+                System.arraycopy(pack, record.getPackOffset(), content, 0, content.length);
+            } finally {
+                zero(pack);
+            }
+            return content;
+        }
+        int position = 0;
+        for (ChunkInfo chunk : chunks) {
+            if (position == content.length) {
+                break;
+            }
+            byte[] plain = fetchChunk(chunk);
+            int count = Math.min(plain.length, content.length - position);
+            System.arraycopy(plain, 0, content, position, count);
+            position += count;
+            zero(plain);
+        }
+        return content;
+    }
+
+    private ChunkCodec compressionCodec() {
+        byte codecId = index.getCompressionCodec();
+        return codecId != ChunkCodecs.NONE ? ChunkCodecs.get(codecId) : null;
+    }
+
+    private FileRecord unpack(String fileId, FileRecord record) {
+        byte[] content = null;
+        ChunkOutputStream out = new ChunkOutputStream(fileId);
+        try {
+            content = readContent(record, MAX_IN_MEMORY_FILE_SIZE);
+            out.write(content);
+            FileRecord unpacked = out.finish();
+            commitFile(fileId, unpacked, out.writtenChunkIds());
+            return unpacked;
+        } catch (IOException e) {
+            out.abort();
+            throw new VaultException("Failed to unpack file", e);
+        } catch (RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            zero(content);
+        }
+    }
+
+    private ChunkInfo storeChunk(byte[] data, int length, ChunkCodec codec, byte[] digest) throws IOException {
+        long dictionaryId = dictionaryFor(codec, length);
+        byte[] dictionary = dictionaryId != 0 ? loadDictionary(dictionaryId) : null;
+        SealedChunk sealed = sealChunk(index.allocateChunkId(), data, length, digest, vaultKey,
+                codec, dictionaryId, dictionary);
+        return writeSealed(sealed);
+    }
+
+    private long dictionaryFor(ChunkCodec codec, int length) {
+        if (codec == null || codec.getId() != DeflateChunkCodec.ID || length > SMALL_CHUNK_LIMIT) {
+            return 0;
+        }
+        return index.getActiveDictionary();
+    }
+
+    private static SealedChunk sealChunk(long chunkId, byte[] data, int length, byte[] digest, byte[] key,
+                                         ChunkCodec codec, long dictionaryId, byte[] dictionary) throws IOException {
+        byte chunkCodec = ChunkCodecs.NONE;
+        byte[] plain = null;
+        if (dictionary != null) {
+            plain = compressWithDictionary(data, length, dictionaryId, dictionary);
+            if (plain != null) {
+                chunkCodec = DeflateChunkCodec.DICTIONARY_ID;
+            }
+        }
+        if (plain == null && codec != null && ChunkCodecs.looksCompressible(codec, data, length)) {
+            plain = codec.compress(data, 0, length);
+            if (plain.length < length) {
+                chunkCodec = codec.getId();
+            } else {
+                zero(plain);
+                plain = null;
+            }
+        }
+        if (plain == null) {
+            plain = length == data.length ? data : Arrays.copyOf(data, length);
+        }
+        byte[] encrypted = AesGcmCipher.encrypt(plain, key, chunkAad(chunkId, chunkCodec));
+        if (plain != data) {
+            zero(plain);
+        }
+        boolean small = codec != null && length <= SMALL_CHUNK_LIMIT;
+        return new SealedChunk(chunkId, length, digest, chunkCodec, encrypted, small);
+    }
+
+    private ChunkInfo writeSealed(SealedChunk sealed) throws IOException {
+        if (sealed.small) {
+            smallChunksSinceTraining++;
+        }
+        long offset = index.allocateExtent(VaultFrame.OVERHEAD + sealed.encrypted.length);
+        if (offset < 0) {
+            offset = channel.size();
+        }
+        VaultFrame.write(channel, offset, VaultFrame.TYPE_CHUNK, sealed.encrypted);
+        return new ChunkInfo(sealed.chunkId, offset, sealed.encrypted.length, sealed.length,
+                sealed.digest, sealed.codec);
+    }
+
+    private static byte[] compressWithDictionary(byte[] data, int length, long dictionaryId, byte[] dictionary)
+            throws IOException {
+        byte[] compressed = DICTIONARY_CODEC.compress(data, 0, length, dictionary);
+        byte[] payload = null;
+        if (Long.BYTES + compressed.length < length) {
+            payload = ByteBuffer.allocate(Long.BYTES + compressed.length)
+                    .putLong(dictionaryId)
+                    .put(compressed)
+                    .array();
+        }
+        zero(compressed);
+        return payload;
+    }
+
+    private byte[] loadDictionary(long chunkId) throws IOException {
+        byte[] dictionary = dictionaries.get(chunkId);
+        if (dictionary == null) {
+            byte[] loaded = fetchChunk(index.getChunk(chunkId));
+            dictionary = dictionaries.putIfAbsent(chunkId, loaded);
+            if (dictionary == null) {
+                dictionary = loaded;
+            } else {
+                zero(loaded);
+            }
+        }
+        return dictionary;
+    }
+
+    public synchronized SpaceStats getSpaceStats() {
         ensureOpen();
-        if (fileData.remove(fileId) != null) {
-            persistMetadata();
+        try {
+            FreeSpaceMap freeSpace = index.getFreeSpace();
+            return new SpaceStats(channel.size(), METADATA_BLOCK_OFFSET + index.getLiveBytes(),
+                    freeSpace.getFreeBytes(), freeSpace.getExtentCount());
+        } catch (IOException e) {
+            throw new VaultException("Failed to read vault size", e);
         }
     }
 
-    public void changePassword(char[] currentPassword, char[] newPassword) {
+    public synchronized void setChunkCacheCapacity(long capacityBytes) {
+        chunkCache.setCapacity(capacityBytes);
+    }
+
+    public synchronized long getChunkCacheCapacity() {
+        return chunkCache.getCapacity();
+    }
+
+    public synchronized ChunkCacheStats getChunkCacheStats() {
+        return chunkCache.getStats();
+    }
+
+    public synchronized void clearChunkCache() {
+        chunkCache.clear();
+    }
+
+    public synchronized void setReadAheadChunks(int chunks) {
+        if (chunks < 0) {
+            throw new IllegalArgumentException("Read-ahead window must not be negative");
+        }
+        this.readAheadChunks = chunks;
+    }
+
+    public synchronized int getReadAheadChunks() {
+        return readAheadChunks;
+    }
+
+    public synchronized void setCryptoPool(ForkJoinPool pool) {
+        this.cryptoPool = pool;
+    }
+
+    public synchronized ForkJoinPool getCryptoPool() {
+        return cryptoPool;
+    }
+
+    private ReadAhead newParallelReadAhead(ChunkInfo[] chunks) {
+        if (cryptoPool == null || cryptoPool.getParallelism() < 2 || readAheadChunks == 0) {
+            return newReadAhead(chunks, readAheadChunks);
+        }
+        int window = Math.min(MAX_PARALLEL_READ_CHUNKS, Math.max(readAheadChunks, 2 * cryptoPool.getParallelism()));
+        return new ReadAhead(chunks, this::fetchChunk, cryptoPool, window);
+    }
+
+    private ReadAhead newReadAhead(ChunkInfo[] chunks, int window) {
+        Executor executor;
+        synchronized (readAheadLock) {
+            if (readAheadExecutor == null && window > 0) {
+                int threads = Math.max(1, Math.min(window, Runtime.getRuntime().availableProcessors()));
+                readAheadExecutor = Executors.newFixedThreadPool(threads, task -> {
+                    Thread thread = new Thread(task, "VaultReadAhead");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor = readAheadExecutor != null ? readAheadExecutor : Runnable::run;
+        }
+        return new ReadAhead(chunks, this::fetchChunk, executor, window);
+    }
+
+    public synchronized int packSmallFiles(long maxBytes) {
+        ensureOpen();
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Step size must be positive");
+        }
+        if (batchRecords != null || !packingDirty) {
+            return 0;
+        }
+        List<Map.Entry<String, FileRecord>> candidates = index.getPackCandidates();
+        byte[] pack = new byte[PACK_SIZE];
+        List<JournalRecord> records = new ArrayList<>();
+        int packedFiles = 0;
+        long written = 0;
+        int next = 0;
+        try {
+            while (next < candidates.size() && written < maxBytes) {
+                List<Map.Entry<String, FileRecord>> members = new ArrayList<>();
+                List<Integer> offsets = new ArrayList<>();
+                int length = 0;
+                while (next < candidates.size() && length + candidates.get(next).getValue().getSize() <= PACK_SIZE) {
+                    FileRecord record = candidates.get(next).getValue();
+                    byte[] content = readContent(record, PACK_FILE_LIMIT);
+                    System.arraycopy(content, 0, pack, length, content.length);
+                    zero(content);
+                    offsets.add(length);
+                    members.add(candidates.get(next));
+                    length += content.length;
+                    next++;
+                }
+                if (members.size() == 1 && !members.get(0).getValue().isPacked()) {
+                    continue;
+                }
+
+                ChunkInfo chunk = storeChunk(pack, length, compressionCodec(), null);
+                index.putChunk(chunk);
+                for (int i = 0; i < members.size(); i++) {
+                    FileRecord packed = new FileRecord(members.get(i).getValue().getSize(),
+                            new long[]{chunk.getId()}, offsets.get(i));
+                    evictReleased(index.putFile(members.get(i).getKey(), packed));
+                    records.add(JournalRecord.putFile(members.get(i).getKey(), packed,
+                            i == 0 ? new ChunkInfo[]{chunk} : new ChunkInfo[0]));
+                }
+                packedFiles += members.size();
+                written += chunk.getFrameLength();
+            }
+            if (!records.isEmpty()) {
+                logRecord(JournalRecord.batch(records));
+            }
+            if (next >= candidates.size()) {
+                packingDirty = false;
+            }
+            return packedFiles;
+        } catch (IOException e) {
+            throw new VaultException("Failed to pack small files", e);
+        } finally {
+            zero(pack);
+        }
+    }
+
+    public synchronized long compactStep(long maxBytes) {
+        ensureOpen();
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Step size must be positive");
+        }
+        if (batchRecords != null) {
+            return 0;
+        }
+        try {
+            if (journalRecords > 0) {
+                checkpoint();
+            }
+            List<ChunkInfo> relocated = new ArrayList<>();
+            long moved = 0;
+            for (ChunkInfo chunk : index.getChunksByOffsetDescending()) {
+                if (moved >= maxBytes) {
+                    break;
+                }
+                long target = index.getFreeSpace().allocateLowest(chunk.getFrameLength(), chunk.getOffset());
+                if (target < 0) {
+                    continue;
+                }
+                byte[] payload = VaultFrame.read(channel, chunk.getOffset(), VaultFrame.TYPE_CHUNK, chunk.getStoredLength());
+                VaultFrame.write(channel, target, VaultFrame.TYPE_CHUNK, payload);
+                ChunkInfo movedChunk = chunk.relocateTo(target);
+                index.putChunk(movedChunk);
+                relocated.add(movedChunk);
+                moved += chunk.getFrameLength();
+            }
+            if (!relocated.isEmpty()) {
+                logRecord(JournalRecord.relocate(relocated));
+            }
+            moved += relocateMetadata();
+
+            long liveEnd = Math.max(METADATA_BLOCK_OFFSET, index.getLiveEnd(pendingChunks()));
+            if (!checkpointAt(liveEnd, header.getIndexOffset()) && !relocated.isEmpty()) {
+                checkpoint();
+            }
+            return moved;
+        } catch (IOException e) {
+            throw new VaultException("Failed to compact vault", e);
+        }
+    }
+
+    private long relocateMetadata() throws IOException {
+        long offset = index.getMetadataOffset();
+        if (offset == 0) {
+            return 0;
+        }
+        long frameLength = VaultFrame.OVERHEAD + (long) index.getMetadataLength();
+        long target = index.getFreeSpace().allocateLowest(frameLength, offset);
+        if (target < 0) {
+            return 0;
+        }
+        byte[] payload = VaultFrame.read(channel, offset, VaultFrame.TYPE_METADATA, index.getMetadataLength());
+        VaultFrame.write(channel, target, VaultFrame.TYPE_METADATA, payload);
+        index.setMetadata(target, index.getMetadataLength(), index.getMetadataVersion());
+        logRecord(JournalRecord.setMetadata(target, index.getMetadataLength(), index.getMetadataVersion()));
+        return frameLength;
+    }
+
+    public synchronized void deleteFile(String fileId) {
+        ensureOpen();
+        FileRecord removed = index.removeFile(fileId);
+        if (removed != null) {
+            evictReleased(removed);
+            packingDirty = true;
+            try {
+                logRecord(JournalRecord.deleteFile(fileId));
+            } catch (IOException e) {
+                throw new VaultException("Failed to delete file", e);
+            }
+        }
+    }
+
+    public synchronized void copyFile(String sourceId, String targetId) {
+        ensureOpen();
+        if (targetId == null || targetId.isEmpty()) {
+            throw new IllegalArgumentException("File ID must not be null or empty");
+        }
+        FileRecord record = index.getFile(sourceId);
+        if (record == null) {
+            throw new VaultException("File not found in vault: " + sourceId);
+        }
+        try {
+            commitFile(targetId, record, new long[0]);
+        } catch (IOException e) {
+            throw new VaultException("Failed to copy file", e);
+        }
+    }
+
+    public synchronized void changePassword(char[] currentPassword, char[] newPassword) {
         if (!open) {
             throw new IllegalStateException("Vault must be open to change password");
         }
@@ -249,7 +1076,9 @@ public class VaultContainer implements Closeable {
 
             byte[] encryptedVaultKey = AesGcmCipher.encrypt(vaultKey, newMasterKey);
 
-            this.header = new VaultHeader(newSalt, newHeaderIv);
+            VaultHeader newHeader = new VaultHeader(newSalt, newHeaderIv);
+            newHeader.setIndexOffset(header.getIndexOffset());
+            this.header = newHeader;
 
             channel.position(0);
             channel.write(ByteBuffer.wrap(header.toBytes()));
@@ -265,17 +1094,46 @@ public class VaultContainer implements Closeable {
     }
 
     @Override
-    public void close() {
-        if (vaultKey != null) {
-            Arrays.fill(vaultKey, (byte) 0);
-            vaultKey = null;
+    public synchronized void close() {
+        if (batchRecords != null) {
+            index = batchSnapshot;
+            batchRecords = null;
+            batchSnapshot = null;
+            batchOwner = null;
         }
+        try {
+            if (open && journalRecords > 0) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            throw new VaultException("Failed to checkpoint vault on close", e);
+        } finally {
+            this.open = false;
+            if (vaultKey != null) {
+                Arrays.fill(vaultKey, (byte) 0);
+                vaultKey = null;
+            }
+            zero(dedupKey);
+            dedupKey = null;
+            for (byte[] dictionary : dictionaries.values()) {
+                zero(dictionary);
+            }
+            dictionaries.clear();
+            chunkCache.clear();
+            smallChunksSinceTraining = 0;
+            packingDirty = true;
+            if (chunkGear != null) {
+                Arrays.fill(chunkGear, 0);
+                chunkGear = null;
+            }
 
-        closeResources();
+            closeResources();
 
-        this.open = false;
-        this.header = null;
-        this.fileData = new HashMap<>();
+            activeWriters.clear();
+            activeReaders.clear();
+            this.header = null;
+            this.index = new ContainerIndex();
+        }
     }
 
     private void ensureOpen() {
@@ -288,50 +1146,350 @@ public class VaultContainer implements Closeable {
         return vaultPath;
     }
 
-    private void persistMetadata() {
+    public synchronized short getFormatVersion() {
+        ensureOpen();
+        return header.getVersion();
+    }
+
+    public synchronized int getFileCount() {
+        ensureOpen();
+        return index.getFileCount();
+    }
+
+    private ChunkInfo[] resolveChunks(FileRecord record) {
+        if (record == null) {
+            return new ChunkInfo[0];
+        }
+        long[] chunkIds = record.getChunkIds();
+        ChunkInfo[] chunks = new ChunkInfo[chunkIds.length];
+        for (int i = 0; i < chunkIds.length; i++) {
+            chunks[i] = index.getChunk(chunkIds[i]);
+        }
+        return chunks;
+    }
+
+    private static long[] chunkStarts(ChunkInfo[] chunks) {
+        long[] starts = new long[chunks.length];
+        long start = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            starts[i] = start;
+            start += chunks[i].getPlainLength();
+        }
+        return starts;
+    }
+
+    private static int locateChunk(long[] starts, long plainPosition) {
+        int found = Arrays.binarySearch(starts, plainPosition);
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private static long[] spliceChunks(ChunkInfo[] chunks, int first, int last, long[] replacement) {
+        int kept = first + (chunks.length - Math.max(last + 1, first));
+        long[] chunkIds = new long[kept + replacement.length];
+        int position = 0;
+        for (int i = 0; i < first; i++) {
+            chunkIds[position++] = chunks[i].getId();
+        }
+        System.arraycopy(replacement, 0, chunkIds, position, replacement.length);
+        position += replacement.length;
+        for (int i = Math.max(last + 1, first); i < chunks.length; i++) {
+            chunkIds[position++] = chunks[i].getId();
+        }
+        return chunkIds;
+    }
+
+    private static byte[] recordAad(long sequence, long offset) {
+        return ByteBuffer.allocate(RECORD_AAD_PREFIX.length + 16)
+                .put(RECORD_AAD_PREFIX)
+                .putLong(sequence)
+                .putLong(offset)
+                .array();
+    }
+
+    private static byte[] metadataAad(long version) {
+        return ByteBuffer.allocate(METADATA_AAD_PREFIX.length + 8)
+                .put(METADATA_AAD_PREFIX)
+                .putLong(version)
+                .array();
+    }
+
+    private static void zero(byte[] data) {
+        if (data != null) {
+            Arrays.fill(data, (byte) 0);
+        }
+    }
+
+    private byte[] readChunk(ChunkInfo chunk) throws IOException {
+        byte[] cached = chunkCache.get(chunk.getId());
+        if (cached != null) {
+            return cached;
+        }
+        byte[] plain = decryptChunk(chunk);
+        chunkCache.put(chunk.getId(), plain);
+        return plain;
+    }
+
+    private void evictReleased(FileRecord previous) {
+        if (previous == null) {
+            return;
+        }
+        for (long chunkId : previous.getChunkIds()) {
+            if (index.findChunk(chunkId) == null) {
+                chunkCache.invalidate(chunkId);
+            }
+        }
+    }
+
+    private byte[] fetchChunk(ChunkInfo chunk) throws IOException {
+        byte[] cached = chunkCache.get(chunk.getId());
+        if (cached != null) {
+            return cached;
+        }
+        FileChannel source = channel;
+        byte[] key = vaultKey;
+        if (source == null || key == null || !open) {
+            throw new ClosedChannelException();
+        }
+        byte[] encrypted = VaultFrame.read(source, chunk.getOffset(), VaultFrame.TYPE_CHUNK, chunk.getStoredLength());
+        byte[] plain;
         try {
-            byte[] serialized = serializeMetadata(fileData);
-            byte[] encrypted = AesGcmCipher.encrypt(serialized, vaultKey);
+            plain = decodeChunk(chunk, AesGcmCipher.decrypt(encrypted, key, chunkAad(chunk.getId(), chunk.getCodec())));
+        } catch (RuntimeException e) {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            throw e;
+        }
+        synchronized (chunkCache) {
+            if (!open) {
+                zero(plain);
+                throw new ClosedChannelException();
+            }
+            if (index.findChunk(chunk.getId()) != null) {
+                chunkCache.put(chunk.getId(), plain);
+            }
+        }
+        return plain;
+    }
 
-            channel.position(METADATA_BLOCK_OFFSET);
+    private FileSnapshot pinFile(String fileId) {
+        while (true) {
+            ensureOpen();
+            ContainerIndex view = readView();
+            FileRecord record = view.getFile(fileId);
+            if (record == null) {
+                return null;
+            }
+            long[] chunkIds = record.getChunkIds();
+            ChunkInfo[] chunks = new ChunkInfo[chunkIds.length];
+            for (int i = 0; i < chunkIds.length; i++) {
+                chunks[i] = view.findChunk(chunkIds[i]);
+            }
+            FileSnapshot snapshot = new FileSnapshot(record, chunks);
+            activeReaders.add(snapshot);
+            boolean stable = readView() == view && view.getFile(fileId) == record;
+            if (stable && snapshot.isCurrentIn(view)) {
+                return snapshot;
+            }
+            activeReaders.remove(snapshot);
+            if (stable) {
+                for (int i = 0; i < chunks.length; i++) {
+                    if (chunks[i] == null) {
+                        throw new VaultException("Missing chunk " + chunkIds[i] + " in vault index");
+                    }
+                }
+            }
+        }
+    }
+
+    private ContainerIndex readView() {
+        ContainerIndex committed = batchSnapshot;
+        return committed != null && batchOwner != Thread.currentThread() ? committed : index;
+    }
 
-            ByteBuffer lengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
-            lengthBuffer.putInt(encrypted.length);
-            lengthBuffer.flip();
-            channel.write(lengthBuffer);
-            channel.write(ByteBuffer.wrap(encrypted));
+    private byte[] decryptChunk(ChunkInfo chunk) throws IOException {
+        byte[] encrypted = VaultFrame.read(channel, chunk.getOffset(), VaultFrame.TYPE_CHUNK, chunk.getStoredLength());
+        return decodeChunk(chunk, AesGcmCipher.decrypt(encrypted, vaultKey, chunkAad(chunk.getId(), chunk.getCodec())));
+    }
 
-            long newFileSize = channel.position();
-            channel.truncate(newFileSize);
+    private byte[] decodeChunk(ChunkInfo chunk, byte[] plain) throws IOException {
+        if (chunk.getCodec() == DeflateChunkCodec.DICTIONARY_ID) {
+            byte[] compressed = plain;
+            byte[] dictionary = loadDictionary(ByteBuffer.wrap(compressed).getLong());
+            plain = DICTIONARY_CODEC.decompress(compressed, Long.BYTES, chunk.getPlainLength(), dictionary);
+            zero(compressed);
+        } else if (chunk.getCodec() != ChunkCodecs.NONE) {
+            byte[] compressed = plain;
+            plain = ChunkCodecs.get(chunk.getCodec()).decompress(compressed, chunk.getPlainLength());
+            zero(compressed);
+        }
+        if (plain.length != chunk.getPlainLength()) {
+            throw new VaultException("Chunk length mismatch for chunk " + chunk.getId());
+        }
+        return plain;
+    }
 
+    private static byte[] chunkAad(long chunkId, byte codec) {
+        if (codec == ChunkCodecs.NONE) {
+            return ByteBuffer.allocate(8).order(ByteOrder.BIG_ENDIAN).putLong(chunkId).array();
+        }
+        return ByteBuffer.allocate(9).order(ByteOrder.BIG_ENDIAN).putLong(chunkId).put(codec).array();
+    }
+
+    private void upgradeLegacyFormat(Map<String, byte[]> legacyBlobs) throws IOException {
+        ContainerIndex upgraded = new ContainerIndex();
+        this.index = upgraded;
+        for (Map.Entry<String, byte[]> entry : legacyBlobs.entrySet()) {
+            byte[] plain = AesGcmCipher.decrypt(entry.getValue(), vaultKey);
+            ChunkOutputStream out = new ChunkOutputStream(entry.getKey());
+            out.write(plain);
+            upgraded.putFile(entry.getKey(), out.finish());
+            Arrays.fill(plain, (byte) 0);
+        }
+        this.header = new VaultHeader(header.getSalt(), header.getHeaderIv());
+        checkpoint();
+    }
+
+    private void commitFile(String fileId, FileRecord record, long[] newChunkIds) throws IOException {
+        evictReleased(index.putFile(fileId, record));
+        packingDirty = true;
+        ChunkInfo[] newChunks = new ChunkInfo[newChunkIds.length];
+        for (int i = 0; i < newChunkIds.length; i++) {
+            newChunks[i] = index.getChunk(newChunkIds[i]);
+        }
+        logRecord(JournalRecord.putFile(fileId, record, newChunks));
+    }
+
+    private void logRecord(JournalRecord record) throws IOException {
+        if (batchRecords != null) {
+            batchRecords.add(record);
+            return;
+        }
+        long offset = channel.size();
+        byte[] encrypted = AesGcmCipher.encrypt(record.serialize(), vaultKey,
+                recordAad(index.getCheckpointSequence(), offset));
+        VaultFrame.write(channel, offset, VaultFrame.TYPE_RECORD, encrypted);
+        channel.force(true);
+
+        journalRecords++;
+        if (journalRecords >= CHECKPOINT_RECORD_LIMIT || channel.size() - journalStart >= CHECKPOINT_BYTE_LIMIT) {
+            checkpoint();
+        }
+    }
+
+    private void replayJournal(long position) throws IOException {
+        journalStart = position;
+        journalRecords = 0;
+        while (position < channel.size()) {
+            VaultFrame.Frame frame = VaultFrame.readNext(channel, position);
+            if (frame == null) {
+                checkpoint();
+                return;
+            }
+            if (frame.getType() == VaultFrame.TYPE_RECORD) {
+                byte[] serialized;
+                try {
+                    serialized = AesGcmCipher.decrypt(frame.getPayload(), vaultKey,
+                            recordAad(index.getCheckpointSequence(), position));
+                } catch (CryptoException e) {
+                    checkpoint();
+                    return;
+                }
+                JournalRecord.deserialize(serialized).applyTo(index);
+                journalRecords++;
+            }
+            position = frame.getEnd();
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        checkpointAt(channel.size(), Long.MAX_VALUE);
+    }
+
+    private boolean checkpointAt(long offset, long limit) throws IOException {
+        FreeSpaceMap previousFreeSpace = index.replaceFreeSpace(
+                index.computeFreeSpace(METADATA_BLOCK_OFFSET, offset, pendingChunks()));
+        long previousSequence = index.getCheckpointSequence();
+        index.setCheckpointSequence(previousSequence + 1);
+        long end;
+        try {
+            byte[] encrypted = AesGcmCipher.encrypt(index.serialize(), vaultKey, INDEX_AAD);
+            end = offset + VaultFrame.OVERHEAD + encrypted.length;
+            if (end > limit) {
+                index.replaceFreeSpace(previousFreeSpace);
+                index.setCheckpointSequence(previousSequence);
+                return false;
+            }
+            VaultFrame.write(channel, offset, VaultFrame.TYPE_INDEX, encrypted);
             channel.force(true);
-        } catch (IOException e) {
-            throw new VaultException("Failed to persist metadata", e);
+
+            header.setIndexOffset(offset);
+            writeHeader();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            index.replaceFreeSpace(previousFreeSpace);
+            index.setCheckpointSequence(previousSequence);
+            throw e;
         }
+
+        journalStart = end;
+        journalRecords = 0;
+        if (end < channel.size()) {
+            channel.truncate(end);
+            channel.force(true);
+        }
+        return true;
     }
 
-    private byte[] serializeMetadata(Map<String, byte[]> data) {
-        int totalSize = 4;
-        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
-            totalSize += 4 + entry.getKey().getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
-            totalSize += 4 + entry.getValue().length;
+    private List<ChunkInfo> pendingChunks() {
+        List<ChunkInfo> pending = new ArrayList<>();
+        for (ChunkOutputStream writer : activeWriters) {
+            pending.addAll(writer.chunks);
         }
+        for (FileSnapshot reader : activeReaders) {
+            for (ChunkInfo chunk : reader.chunks) {
+                if (chunk != null) {
+                    pending.add(chunk);
+                }
+            }
+        }
+        return pending;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header.toBytes());
+        while (headerBuffer.hasRemaining()) {
+            channel.write(headerBuffer, headerBuffer.position());
+        }
+    }
+
+    private byte[] readIndexFrame(long offset) throws IOException {
+        if (offset < METADATA_BLOCK_OFFSET || offset >= channel.size()) {
+            throw new VaultException("Invalid index offset: " + offset);
+        }
+        return VaultFrame.read(channel, offset, VaultFrame.TYPE_INDEX);
+    }
 
-        ByteBuffer buffer = ByteBuffer.allocate(totalSize).order(ByteOrder.BIG_ENDIAN);
-        buffer.putInt(data.size());
+    private Map<String, byte[]> readLegacyMetadata() throws IOException {
+        ByteBuffer metadataLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+        readFully(channel, metadataLengthBuffer);
+        metadataLengthBuffer.flip();
+        int metadataLength = metadataLengthBuffer.getInt();
 
-        for (Map.Entry<String, byte[]> entry : data.entrySet()) {
-            byte[] keyBytes = entry.getKey().getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            buffer.putInt(keyBytes.length);
-            buffer.put(keyBytes);
-            buffer.putInt(entry.getValue().length);
-            buffer.put(entry.getValue());
+        if (metadataLength < 0 || metadataLength > channel.size() - channel.position()) {
+            throw new VaultException("Invalid metadata length: " + metadataLength);
         }
 
-        return buffer.array();
+        ByteBuffer encryptedMetadataBuffer = ByteBuffer.allocate(metadataLength);
+        readFully(channel, encryptedMetadataBuffer);
+        encryptedMetadataBuffer.flip();
+        byte[] encryptedMetadata = new byte[metadataLength];
+        encryptedMetadataBuffer.get(encryptedMetadata);
+        byte[] decryptedMetadata = AesGcmCipher.decrypt(encryptedMetadata, vaultKey);
+        return deserializeLegacyMetadata(decryptedMetadata);
     }
 
-    private Map<String, byte[]> deserializeMetadata(byte[] data) {
+    private Map<String, byte[]> deserializeLegacyMetadata(byte[] data) {
         Map<String, byte[]> result = new HashMap<>();
         ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
 
@@ -340,7 +1498,7 @@ public class VaultContainer implements Closeable {
             int keyLength = buffer.getInt();
             byte[] keyBytes = new byte[keyLength];
             buffer.get(keyBytes);
-            String key = new String(keyBytes, java.nio.charset.StandardCharsets.UTF_8);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
 
             int valueLength = buffer.getInt();
             byte[] value = new byte[valueLength];
@@ -360,4 +1518,453 @@ public class VaultContainer implements Closeable {
             }
         }
     }
+
+    public final class ChunkOutputStream extends OutputStream {
+
+        private final String fileId;
+        private byte[] buffer = new byte[0];
+        private final ContentChunker chunker;
+        private final ChunkCodec codec;
+        private final List<ChunkInfo> chunks;
+        private final Map<ByteBuffer, ChunkInfo> written;
+        private final ContainerIndex target;
+        private final byte[] key;
+        private final byte[] hashKey;
+        private final ForkJoinPool pool;
+        private final Deque<PendingChunk> inFlight;
+        private long dictionaryId = -1;
+        private byte[] dictionary;
+        private int buffered;
+        private long size;
+        private boolean sealed;
+        private boolean closed;
+
+        private ChunkOutputStream(String fileId) {
+            this.fileId = fileId;
+            this.chunker = new ContentChunker(chunkGear);
+            this.codec = compressionCodec();
+            this.chunks = new ArrayList<>();
+            this.written = new LinkedHashMap<>();
+            this.target = index;
+            this.key = vaultKey;
+            this.hashKey = dedupKey;
+            this.pool = cryptoPool;
+            this.inFlight = new ArrayDeque<>();
+            activeWriters.add(this);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureWritable();
+            reserve(1);
+            buffer[buffered++] = (byte) b;
+            size++;
+            cutChunks();
+        }
+
+        @Override
+        public void write(byte[] data, int off, int len) throws IOException {
+            ensureWritable();
+            Objects.checkFromIndexSize(off, len, data.length);
+            while (len > 0) {
+                int count = Math.min(len, reserve(len));
+                System.arraycopy(data, off, buffer, buffered, count);
+                buffered += count;
+                size += count;
+                off += count;
+                len -= count;
+                cutChunks();
+            }
+        }
+
+        public long transferFrom(InputStream in) throws IOException {
+            ensureWritable();
+            long transferred = 0;
+            int read;
+            while ((read = readInto(in)) > 0) {
+                buffered += read;
+                size += read;
+                transferred += read;
+                cutChunks();
+            }
+            return transferred;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (VaultContainer.this) {
+                if (closed) {
+                    return;
+                }
+                commitFile(fileId, finish(), writtenChunkIds());
+            }
+        }
+
+        public void abort() {
+            synchronized (VaultContainer.this) {
+                activeWriters.remove(this);
+            }
+            closed = true;
+            for (PendingChunk pending : inFlight) {
+                pending.cancel();
+            }
+            inFlight.clear();
+            Arrays.fill(buffer, (byte) 0);
+            chunks.clear();
+            written.clear();
+        }
+
+        public void seal() throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+            if (sealed) {
+                return;
+            }
+            if (buffered > 0) {
+                flushChunk(buffered);
+            }
+            while (!inFlight.isEmpty()) {
+                retire(inFlight.poll());
+            }
+            sealed = true;
+            zero(buffer);
+            buffer = new byte[0];
+        }
+
+        private FileRecord finish() throws IOException {
+            seal();
+            closed = true;
+            Arrays.fill(buffer, (byte) 0);
+            long[] chunkIds = new long[chunks.size()];
+            for (int i = 0; i < chunkIds.length; i++) {
+                ChunkInfo chunk = chunks.get(i);
+                if (index.findChunk(chunk.getId()) == null) {
+                    index.putChunk(chunk);
+                    written.putIfAbsent(ByteBuffer.wrap(chunk.getDigest()), chunk);
+                }
+                chunkIds[i] = chunk.getId();
+            }
+            activeWriters.remove(this);
+            return new FileRecord(size, chunkIds);
+        }
+
+        private int readInto(InputStream in) throws IOException {
+            int free = reserve(1);
+            return in.readNBytes(buffer, buffered, free);
+        }
+
+        private int reserve(int wanted) {
+            if (buffered == buffer.length && buffer.length < ContentChunker.MAX_CHUNK_SIZE) {
+                long needed = Math.max((long) buffered + wanted, MIN_WRITE_BUFFER);
+                long capacity = Math.max(buffer.length, MIN_WRITE_BUFFER);
+                while (capacity < needed && capacity < ContentChunker.MAX_CHUNK_SIZE) {
+                    capacity *= 2;
+                }
+                byte[] grown = Arrays.copyOf(buffer, (int) Math.min(capacity, ContentChunker.MAX_CHUNK_SIZE));
+                zero(buffer);
+                buffer = grown;
+            }
+            return buffer.length - buffered;
+        }
+
+        private long[] writtenChunkIds() {
+            return written.values().stream().mapToLong(ChunkInfo::getId).toArray();
+        }
+
+        private void cutChunks() throws IOException {
+            int boundary;
+            while ((boundary = chunker.findBoundary(buffer, buffered)) > 0) {
+                flushChunk(boundary);
+            }
+        }
+
+        private void flushChunk(int length) throws IOException {
+            byte[] plain = Arrays.copyOf(buffer, length);
+            System.arraycopy(buffer, length, buffer, 0, buffered - length);
+            buffered -= length;
+
+            long chunkId;
+            synchronized (VaultContainer.this) {
+                if (channel == null) {
+                    zero(plain);
+                    throw new IllegalStateException("Vault is not open");
+                }
+                chunkId = index.allocateChunkId();
+                long activeDictionary = dictionaryFor(codec, length);
+                if (activeDictionary != dictionaryId) {
+                    dictionary = activeDictionary != 0 ? loadDictionary(activeDictionary) : null;
+                    dictionaryId = activeDictionary;
+                }
+            }
+            PendingChunk pending = new PendingChunk(chunkId, plain, dictionaryId, dictionary);
+            if (pool == null || pool.getParallelism() < 2) {
+                pending.run();
+                retire(pending);
+                return;
+            }
+            pending.fork(pool);
+            inFlight.add(pending);
+            while (inFlight.size() > pool.getParallelism()) {
+                retire(inFlight.poll());
+            }
+        }
+
+        private void retire(PendingChunk pending) throws IOException {
+            SealedChunk sealed = pending.await();
+            try {
+                synchronized (VaultContainer.this) {
+                    if (channel == null) {
+                        throw new IllegalStateException("Vault is not open");
+                    }
+                    ChunkInfo duplicate = index.findChunkByDigest(sealed.digest);
+                    if (duplicate == null) {
+                        duplicate = written.get(ByteBuffer.wrap(sealed.digest));
+                    }
+                    if (duplicate != null) {
+                        chunks.add(duplicate);
+                        return;
+                    }
+                    if (sealed.encrypted == null) {
+                        sealed = sealChunk(sealed.chunkId, pending.plain, sealed.length, sealed.digest, key,
+                                codec, pending.dictionaryId, pending.dictionary);
+                    }
+                    ChunkInfo chunk = writeSealed(sealed);
+                    chunks.add(chunk);
+                    written.put(ByteBuffer.wrap(sealed.digest), chunk);
+                }
+            } finally {
+                pending.cancel();
+            }
+        }
+
+        private void ensureWritable() throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+            if (sealed) {
+                throw new IOException("Stream is sealed");
+            }
+        }
+
+        private final class PendingChunk implements Runnable {
+            private final long chunkId;
+            private final byte[] plain;
+            private final long dictionaryId;
+            private final byte[] dictionary;
+            private ForkJoinTask<?> task;
+            private SealedChunk sealed;
+            private Exception failure;
+
+            private PendingChunk(long chunkId, byte[] plain, long dictionaryId, byte[] dictionary) {
+                this.chunkId = chunkId;
+                this.plain = plain;
+                this.dictionaryId = dictionaryId;
+                this.dictionary = dictionary;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    byte[] digest = KeyedHash.hash(hashKey, plain, 0, plain.length);
+                    if (target.containsDigest(digest)) {
+                        sealed = new SealedChunk(chunkId, plain.length, digest, ChunkCodecs.NONE, null, false);
+                    } else {
+                        sealed = sealChunk(chunkId, plain, plain.length, digest, key, codec, dictionaryId, dictionary);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                }
+            }
+
+            private void fork(ForkJoinPool pool) {
+                task = pool.submit(this);
+            }
+
+            private SealedChunk await() throws IOException {
+                if (task != null) {
+                    try {
+                        task.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while encrypting chunk");
+                    } catch (ExecutionException e) {
+                        throw new IOException("Chunk encryption failed", e.getCause());
+                    }
+                }
+                if (failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                if (failure != null) {
+                    throw (RuntimeException) failure;
+                }
+                return sealed;
+            }
+
+            private void cancel() {
+                if (task != null) {
+                    task.cancel(false);
+                }
+                zero(plain);
+            }
+        }
+    }
+
+    private static final class SealedChunk {
+        private final long chunkId;
+        private final int length;
+        private final byte[] digest;
+        private final byte codec;
+        private final byte[] encrypted;
+        private final boolean small;
+
+        private SealedChunk(long chunkId, int length, byte[] digest, byte codec, byte[] encrypted, boolean small) {
+            this.chunkId = chunkId;
+            this.length = length;
+            this.digest = digest;
+            this.codec = codec;
+            this.encrypted = encrypted;
+            this.small = small;
+        }
+    }
+
+    private static final class FileSnapshot {
+        private final FileRecord record;
+        private final ChunkInfo[] chunks;
+
+        private FileSnapshot(FileRecord record, ChunkInfo[] chunks) {
+            this.record = record;
+            this.chunks = chunks;
+        }
+
+        private boolean isCurrentIn(ContainerIndex view) {
+            for (ChunkInfo chunk : chunks) {
+                if (chunk == null || view.findChunk(chunk.getId()) != chunk) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final class ChunkChannel implements SeekableByteChannel {
+
+        private final FileSnapshot snapshot;
+        private final long[] chunkStarts;
+        private final ReadAhead readAhead;
+        private final long base;
+        private final long size;
+        private long position;
+        private int currentIndex;
+        private byte[] current;
+        private boolean channelOpen;
+
+        private ChunkChannel(FileSnapshot snapshot, ReadAhead readAhead) {
+            this.snapshot = snapshot;
+            this.chunkStarts = chunkStarts(snapshot.chunks);
+            this.readAhead = readAhead;
+            this.base = Math.max(0, snapshot.record.getPackOffset());
+            this.size = snapshot.record.getSize();
+            this.currentIndex = -1;
+            this.channelOpen = true;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureChannelOpen();
+            if (position >= size) {
+                return -1;
+            }
+            int total = 0;
+            while (dst.hasRemaining() && position < size) {
+                int chunkIndex = locate(base + position);
+                load(chunkIndex);
+                int offsetInChunk = (int) (base + position - chunkStarts[chunkIndex]);
+                int count = (int) Math.min(Math.min(dst.remaining(), current.length - offsetInChunk), size - position);
+                dst.put(current, offsetInChunk, count);
+                position += count;
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureChannelOpen();
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            ensureChannelOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Position must not be negative");
+            }
+            this.position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureChannelOpen();
+            return size;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long newSize) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channelOpen;
+        }
+
+        @Override
+        public void close() {
+            channelOpen = false;
+            readAhead.close();
+            activeReaders.remove(snapshot);
+            if (current != null) {
+                Arrays.fill(current, (byte) 0);
+                current = null;
+            }
+            currentIndex = -1;
+        }
+
+        private int locate(long plainPosition) {
+            if (currentIndex >= 0 && plainPosition >= chunkStarts[currentIndex]
+                    && plainPosition < chunkStarts[currentIndex] + current.length) {
+                return currentIndex;
+            }
+            return locateChunk(chunkStarts, plainPosition);
+        }
+
+        private void load(int chunkIndex) throws IOException {
+            if (chunkIndex == currentIndex) {
+                return;
+            }
+            byte[] loaded = readAhead.get(chunkIndex);
+            if (current != null) {
+                Arrays.fill(current, (byte) 0);
+            }
+            current = loaded;
+            currentIndex = chunkIndex;
+        }
+
+        private void ensureChannelOpen() throws ClosedChannelException {
+            if (!channelOpen) {
+                throw new ClosedChannelException();
+            }
+        }
+    }
 }
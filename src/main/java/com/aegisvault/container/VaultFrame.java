@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.exception.VaultException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+final class VaultFrame {
+
+    static final byte TYPE_CHUNK = 1;
+    static final byte TYPE_INDEX = 2;
+    static final byte TYPE_METADATA = 3;
+    static final byte TYPE_RECORD = 4;
+
+    static final int HEADER_SIZE = 5;
+    static final int TRAILER_SIZE = 4;
+    static final int OVERHEAD = HEADER_SIZE + TRAILER_SIZE;
+
+    private VaultFrame() {
+    }
+
+    static long append(FileChannel channel, byte type, byte[] payload) throws IOException {
+        long offset = channel.size();
+        write(channel, offset, type, payload);
+        return offset;
+    }
+
+    static void write(FileChannel channel, long offset, byte type, byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(OVERHEAD + payload.length).order(ByteOrder.BIG_ENDIAN);
+        frame.put(type);
+        frame.putInt(payload.length);
+        frame.put(payload);
+        frame.putInt(checksum(frame.array(), HEADER_SIZE + payload.length));
+        frame.flip();
+
+        long position = offset;
+        while (frame.hasRemaining()) {
+            position += channel.write(frame, position);
+        }
+    }
+
+    static byte[] read(FileChannel channel, long offset, byte expectedType) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, offset + header.position()) == -1) {
+                throw new VaultException("Unexpected end of vault file at offset " + offset);
+            }
+        }
+        header.flip();
+        header.get();
+        int payloadLength = header.getInt();
+        if (payloadLength < 0 || payloadLength > channel.size() - offset - OVERHEAD) {
+            throw new VaultException("Invalid frame length at offset " + offset);
+        }
+        return read(channel, offset, expectedType, payloadLength);
+    }
+
+    static byte[] read(FileChannel channel, long offset, byte expectedType, int payloadLength) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(OVERHEAD + payloadLength).order(ByteOrder.BIG_ENDIAN);
+        long position = offset;
+        while (frame.hasRemaining()) {
+            int bytesRead = channel.read(frame, position);
+            if (bytesRead == -1) {
+                throw new VaultException("Unexpected end of vault file at offset " + position);
+            }
+            position += bytesRead;
+        }
+        frame.flip();
+
+        byte type = frame.get();
+        int length = frame.getInt();
+        if (type != expectedType || length != payloadLength) {
+            throw new VaultException("Corrupted frame at offset " + offset);
+        }
+        int storedChecksum = frame.getInt(HEADER_SIZE + payloadLength);
+        if (storedChecksum != checksum(frame.array(), HEADER_SIZE + payloadLength)) {
+            throw new VaultException("Frame checksum mismatch at offset " + offset);
+        }
+
+        byte[] payload = new byte[payloadLength];
+        frame.get(payload);
+        return payload;
+    }
+
+    static Frame readNext(FileChannel channel, long offset) throws IOException {
+        long remaining = channel.size() - offset;
+        if (remaining < OVERHEAD) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, offset + header.position()) == -1) {
+                return null;
+            }
+        }
+        header.flip();
+        byte type = header.get();
+        int payloadLength = header.getInt();
+        if (payloadLength < 0 || payloadLength > remaining - OVERHEAD) {
+            return null;
+        }
+        try {
+            byte[] payload = read(channel, offset, type, payloadLength);
+            return new Frame(type, payload, offset + OVERHEAD + payloadLength);
+        } catch (VaultException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] data, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    static final class Frame {
+        private final byte type;
+        private final byte[] payload;
+        private final long end;
+
+        private Frame(byte type, byte[] payload, long end) {
+            this.type = type;
+            this.payload = payload;
+            this.end = end;
+        }
+
+        byte getType() {
+            return type;
+        }
+
+        byte[] getPayload() {
+            return payload;
+        }
+
+        long getEnd() {
+            return end;
+        }
+    }
+}
@@ -27,20 +27,21 @@ public class VaultHeader {
 
     public static final byte[] MAGIC = "AEGISVLT".getBytes(StandardCharsets.US_ASCII);
     public static final int HEADER_SIZE = 64;
-    public static final short CURRENT_VERSION = 1;
+    public static final short CURRENT_VERSION = 2;
+    public static final short LEGACY_VERSION = 1;
 
     private static final int MAGIC_OFFSET = 0;
     private static final int VERSION_OFFSET = 8;
     private static final int FLAGS_OFFSET = 10;
     private static final int SALT_OFFSET = 12;
     private static final int HEADER_IV_OFFSET = 44;
-    private static final int RESERVED_OFFSET = 56;
-    private static final int RESERVED_SIZE = 8;
+    private static final int INDEX_OFFSET_OFFSET = 56;
 
     private short version;
     private short flags;
     private byte[] salt;
     private byte[] headerIv;
+    private long indexOffset;
 
     public VaultHeader(byte[] salt, byte[] headerIv) {
         if (salt == null || salt.length != SecureRandomProvider.SALT_SIZE_BYTES) {
@@ -53,13 +54,15 @@ public class VaultHeader {
         this.flags = 0;
         this.salt = salt.clone();
         this.headerIv = headerIv.clone();
+        this.indexOffset = 0;
     }
 
-    private VaultHeader(short version, short flags, byte[] salt, byte[] headerIv) {
+    private VaultHeader(short version, short flags, byte[] salt, byte[] headerIv, long indexOffset) {
         this.version = version;
         this.flags = flags;
         this.salt = salt;
         this.headerIv = headerIv;
+        this.indexOffset = indexOffset;
     }
 
     public static VaultHeader parse(byte[] data) {
@@ -74,15 +77,19 @@ public class VaultHeader {
 
         ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
         short version = buffer.getShort(VERSION_OFFSET);
-        if (version > CURRENT_VERSION) {
+        if (version < LEGACY_VERSION || version > CURRENT_VERSION) {
             throw new VaultException("Unsupported vault version: " + version);
         }
 
         short flags = buffer.getShort(FLAGS_OFFSET);
         byte[] salt = Arrays.copyOfRange(data, SALT_OFFSET, SALT_OFFSET + SecureRandomProvider.SALT_SIZE_BYTES);
         byte[] headerIv = Arrays.copyOfRange(data, HEADER_IV_OFFSET, HEADER_IV_OFFSET + SecureRandomProvider.IV_SIZE_BYTES);
+        long indexOffset = version == LEGACY_VERSION ? 0 : buffer.getLong(INDEX_OFFSET_OFFSET);
+        if (indexOffset < 0) {
+            throw new VaultException("Invalid index offset: " + indexOffset);
+        }
 
-        return new VaultHeader(version, flags, salt, headerIv);
+        return new VaultHeader(version, flags, salt, headerIv, indexOffset);
     }
 
     public byte[] toBytes() {
@@ -93,7 +100,7 @@ public class VaultHeader {
         buffer.putShort(flags);
         buffer.put(salt);
         buffer.put(headerIv);
-        buffer.put(new byte[RESERVED_SIZE]);
+        buffer.putLong(indexOffset);
 
         return buffer.array();
     }
@@ -106,6 +113,21 @@ public class VaultHeader {
         return flags;
     }
 
+    public boolean isLegacy() {
+        return version == LEGACY_VERSION;
+    }
+
+    public long getIndexOffset() {
+        return indexOffset;
+    }
+
+    public void setIndexOffset(long indexOffset) {
+        if (indexOffset < 0) {
+            throw new IllegalArgumentException("Index offset must not be negative");
+        }
+        this.indexOffset = indexOffset;
+    }
+
     public byte[] getSalt() {
         return salt.clone();
     }
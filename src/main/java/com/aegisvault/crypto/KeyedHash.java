@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.crypto;
+
+import com.aegisvault.exception.CryptoException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+public final class KeyedHash {
+
+    public static final int DIGEST_SIZE = 32;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private KeyedHash() {
+    }
+
+    public static byte[] deriveKey(byte[] key, String label) {
+        if (label == null || label.isEmpty()) {
+            throw new IllegalArgumentException("Label must not be null or empty");
+        }
+        byte[] labelBytes = label.getBytes(StandardCharsets.US_ASCII);
+        return hash(key, labelBytes, 0, labelBytes.length);
+    }
+
+    public static byte[] hash(byte[] key, byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data must not be null");
+        }
+        return hash(key, data, 0, data.length);
+    }
+
+    public static byte[] hash(byte[] key, byte[] data, int offset, int length) {
+        if (key == null || key.length != SecureRandomProvider.KEY_SIZE_BYTES) {
+            throw new IllegalArgumentException(
+                "Key must be exactly " + SecureRandomProvider.KEY_SIZE_BYTES + " bytes (256 bits)");
+        }
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            mac.update(data, offset, length);
+            return mac.doFinal();
+        } catch (Exception e) {
+            throw new CryptoException("Keyed hash failed", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public final class DirectoryScan {
+
+    private final Path root;
+    private final List<ScannedEntry> entries;
+    private final int fileCount;
+    private final int directoryCount;
+    private final long totalBytes;
+
+    DirectoryScan(Path root, List<ScannedEntry> entries) {
+        this.root = root;
+        this.entries = Collections.unmodifiableList(entries);
+        int files = 0;
+        int directories = 0;
+        long bytes = 0;
+        for (ScannedEntry entry : entries) {
+            if (entry.isDirectory()) {
+                directories++;
+            } else {
+                files++;
+                bytes += Math.max(0, entry.getSize());
+            }
+        }
+        this.fileCount = files;
+        this.directoryCount = directories;
+        this.totalBytes = bytes;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public List<ScannedEntry> getEntries() {
+        return entries;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getDirectoryCount() {
+        return directoryCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public final class DirectoryScanner {
+
+    public static final int DEFAULT_PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final int parallelism;
+
+    public DirectoryScanner() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public DirectoryScanner(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public DirectoryScan scan(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Source must be a directory");
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ScannedEntry> entries = pool.invoke(new ScanTask(root, ""));
+            IOException error = entries.get(0).getError();
+            if (error != null) {
+                throw error;
+            }
+            return new DirectoryScan(root, entries);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static final class ScanTask extends RecursiveTask<List<ScannedEntry>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path directory;
+        private final String relativePath;
+
+        private ScanTask(Path directory, String relativePath) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+        }
+
+        @Override
+        protected List<ScannedEntry> compute() {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path child : stream) {
+                    children.add(child);
+                }
+            } catch (IOException e) {
+                List<ScannedEntry> failed = new ArrayList<>(1);
+                failed.add(new ScannedEntry(directory, relativePath, true, 0, e));
+                return failed;
+            }
+            children.sort(null);
+
+            List<Object> parts = new ArrayList<>(children.size());
+            for (Path child : children) {
+                String name = child.getFileName().toString();
+                String childPath = relativePath.isEmpty() ? name : relativePath + "/" + name;
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    parts.add(new ScannedEntry(child, childPath, false, 0, e));
+                    continue;
+                }
+                if (attrs.isDirectory()) {
+                    ScanTask task = new ScanTask(child, childPath);
+                    task.fork();
+                    parts.add(task);
+                } else {
+                    parts.add(new ScannedEntry(child, childPath, false, sizeOf(child, attrs), null));
+                }
+            }
+
+            List<ScannedEntry> entries = new ArrayList<>(parts.size() + 1);
+            entries.add(new ScannedEntry(directory, relativePath, true, 0, null));
+            for (Object part : parts) {
+                if (part instanceof ScanTask) {
+                    entries.addAll(((ScanTask) part).join());
+                } else {
+                    entries.add((ScannedEntry) part);
+                }
+            }
+            return entries;
+        }
+
+        private static long sizeOf(Path file, BasicFileAttributes attrs) {
+            if (attrs.isRegularFile()) {
+                return attrs.size();
+            }
+            if (attrs.isSymbolicLink() && Files.isRegularFile(file)) {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface ImportListener {
+
+    default void onFileImported(Path source, String target, long size) {
+    }
+
+    default void onFileFailed(Path source, String target, Exception error) throws IOException {
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        throw new IOException("Failed to import " + source, error);
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import com.aegisvault.service.VaultService;
+import com.aegisvault.vfs.StagedFile;
+import com.aegisvault.vfs.VfsEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public final class ImportPipeline {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_READ_CONCURRENCY = 64;
+    public static final long DEFAULT_BUFFER_BYTES = 64L * 1024 * 1024;
+    public static final int MAX_BUFFERED_FILE = 8 * 1024 * 1024;
+
+    private static final Item END = new Item(null, null, false);
+
+    private final VaultService service;
+    private final int workers;
+    private final int readConcurrency;
+    private final int queueCapacity;
+    private final int bufferBytes;
+
+    public ImportPipeline(VaultService service) {
+        this(service, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_BUFFER_BYTES);
+    }
+
+    public ImportPipeline(VaultService service, int workers, int queueCapacity, long bufferBytes) {
+        this(service, workers, DEFAULT_READ_CONCURRENCY, queueCapacity, bufferBytes);
+    }
+
+    public ImportPipeline(VaultService service, int workers, int readConcurrency, int queueCapacity,
+                          long bufferBytes) {
+        if (service == null) {
+            throw new IllegalArgumentException("Service must not be null");
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        if (readConcurrency < 1) {
+            throw new IllegalArgumentException("Read concurrency must be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        if (bufferBytes < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.service = service;
+        this.workers = workers;
+        this.readConcurrency = readConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.bufferBytes = (int) Math.min(bufferBytes, Integer.MAX_VALUE);
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getReadConcurrency() {
+        return readConcurrency;
+    }
+
+    public int importDirectory(Path source, String targetPath, ImportListener listener) throws IOException {
+        return importScan(new DirectoryScanner().scan(source), targetPath, listener);
+    }
+
+    public int importScan(DirectoryScan scan, String targetPath, ImportListener listener) throws IOException {
+        if (scan == null) {
+            throw new IllegalArgumentException("Scan must not be null");
+        }
+        ImportListener events = listener != null ? listener : new ImportListener() {
+        };
+        return new Run(scan, targetPath).execute(events);
+    }
+
+    private static String childPath(String base, String relative) {
+        if (relative.isEmpty()) {
+            return base;
+        }
+        String name = relative.replace("\\", "/");
+        return base.equals("/") ? "/" + name : base + "/" + name;
+    }
+
+    private final class Run {
+        private final DirectoryScan scan;
+        private final String targetPath;
+        private final BlockingQueue<Item> commitQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final BlockingQueue<Item> workQueue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Semaphore budget = new Semaphore(bufferBytes);
+        private final Semaphore readSlots = new Semaphore(readConcurrency);
+        private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+        private volatile boolean stopped;
+
+        private Run(DirectoryScan scan, String targetPath) {
+            this.scan = scan;
+            this.targetPath = targetPath;
+        }
+
+        private int execute(ImportListener listener) throws IOException {
+            Thread feeder = new Thread(this::feed, "VaultImportFeeder");
+            feeder.setDaemon(true);
+            ExecutorService stagers = Executors.newFixedThreadPool(workers, task -> {
+                Thread thread = new Thread(task, "VaultImportWorker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < workers; i++) {
+                stagers.execute(this::work);
+            }
+            feeder.start();
+            try {
+                return commit(listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted");
+            } finally {
+                shutdown(feeder, stagers);
+            }
+        }
+
+        private int commit(ImportListener listener) throws IOException, InterruptedException {
+            int count = 0;
+            while (!listener.isCancelled()) {
+                Item item = commitQueue.take();
+                if (item == END) {
+                    break;
+                }
+                if (item.directory) {
+                    service.createDirectory(item.target);
+                    count++;
+                    continue;
+                }
+                StagedFile staged;
+                try {
+                    staged = item.staged.get();
+                } catch (ExecutionException e) {
+                    listener.onFileFailed(item.source, item.target, failureOf(e));
+                    continue;
+                }
+                VfsEntry entry;
+                try {
+                    entry = service.commitStagedFile(item.target, staged);
+                } catch (RuntimeException e) {
+                    staged.discard();
+                    listener.onFileFailed(item.source, item.target, e);
+                    continue;
+                }
+                count++;
+                listener.onFileImported(item.source, item.target, entry.getSize());
+            }
+            return count;
+        }
+
+        private void feed() {
+            try {
+                for (ScannedEntry entry : scan.getEntries()) {
+                    if (stopped) {
+                        return;
+                    }
+                    String target = childPath(targetPath, entry.getRelativePath());
+                    Item item = new Item(entry.getPath(), target, entry.isDirectory() && entry.getError() == null);
+                    if (entry.getError() != null) {
+                        item.staged.completeExceptionally(entry.getError());
+                    }
+                    commitQueue.put(item);
+                    if (item.directory || entry.getError() != null) {
+                        continue;
+                    }
+                    long size = entry.getSize();
+                    if (size >= 0 && size <= MAX_BUFFERED_FILE) {
+                        readSlots.acquire();
+                        int permits = (int) Math.min(size, bufferBytes);
+                        loaders.execute(() -> load(item, permits));
+                    } else {
+                        workQueue.put(item);
+                    }
+                }
+                commitQueue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void load(Item item, int permits) {
+            try {
+                budget.acquire(permits);
+                item.permits = permits;
+                item.content = Files.readAllBytes(item.source);
+                workQueue.put(item);
+            } catch (IOException e) {
+                release(item);
+                item.staged.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                release(item);
+                item.staged.cancel(false);
+            } finally {
+                readSlots.release();
+            }
+        }
+
+        private void work() {
+            while (true) {
+                Item item;
+                try {
+                    item = workQueue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (item == END) {
+                    return;
+                }
+                try {
+                    if (stopped) {
+                        item.staged.cancel(false);
+                        continue;
+                    }
+                    StagedFile staged = stage(item);
+                    if (!item.staged.complete(staged)) {
+                        staged.discard();
+                    }
+                } catch (RuntimeException | IOException e) {
+                    item.staged.completeExceptionally(e);
+                } finally {
+                    release(item);
+                }
+            }
+        }
+
+        private StagedFile stage(Item item) throws IOException {
+            if (item.content != null) {
+                return service.stageFile(new ByteArrayInputStream(item.content));
+            }
+            try (InputStream content = Files.newInputStream(item.source)) {
+                return service.stageFile(content);
+            }
+        }
+
+        private void shutdown(Thread feeder, ExecutorService stagers) {
+            stopped = true;
+            feeder.interrupt();
+            boolean interrupted = false;
+            int pills = 0;
+            while (true) {
+                try {
+                    feeder.join();
+                    loaders.shutdownNow();
+                    loaders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    for (; pills < workers; pills++) {
+                        workQueue.put(END);
+                    }
+                    stagers.shutdown();
+                    stagers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            Item item;
+            while ((item = commitQueue.poll()) != null) {
+                release(item);
+                abandon(item);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void release(Item item) {
+            if (item.content != null) {
+                Arrays.fill(item.content, (byte) 0);
+                item.content = null;
+            }
+            if (item.permits > 0) {
+                budget.release(item.permits);
+                item.permits = 0;
+            }
+        }
+
+        private void abandon(Item item) {
+            if (!item.staged.cancel(false) && !item.staged.isCompletedExceptionally()) {
+                item.staged.join().discard();
+            }
+        }
+    }
+
+    private static Exception failureOf(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return e;
+    }
+
+    private static final class Item {
+        private final Path source;
+        private final String target;
+        private final boolean directory;
+        private final CompletableFuture<StagedFile> staged = new CompletableFuture<>();
+        private byte[] content;
+        private int permits;
+
+        private Item(Path source, String target, boolean directory) {
+            this.source = source;
+            this.target = target;
+            this.directory = directory;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public final class ScannedEntry {
+
+    private final Path path;
+    private final String relativePath;
+    private final boolean directory;
+    private final long size;
+    private final IOException error;
+
+    ScannedEntry(Path path, String relativePath, boolean directory, long size, IOException error) {
+        this.path = path;
+        this.relativePath = relativePath;
+        this.directory = directory;
+        this.size = size;
+        this.error = error;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String getRelativePath() {
+        return relativePath;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public IOException getError() {
+        return error;
+    }
+}
@@ -15,11 +15,24 @@
  */
 package com.aegisvault.service;
 
+import com.aegisvault.container.ChunkCacheStats;
+import com.aegisvault.container.ChunkCodecs;
+import com.aegisvault.container.CompactionProgress;
+import com.aegisvault.container.DeflateChunkCodec;
+import com.aegisvault.container.SpaceStats;
+import com.aegisvault.container.VaultCompactor;
 import com.aegisvault.container.VaultContainer;
+import com.aegisvault.vfs.StagedFile;
 import com.aegisvault.vfs.VfsEntry;
 import com.aegisvault.vfs.VirtualFileSystem;
 
 import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
@@ -33,10 +46,13 @@ public class VaultService implements Closeable {
 
     private VaultContainer container;
     private VirtualFileSystem vfs;
+    private VaultCompactor compactor;
     private Path currentVaultPath;
     private Timer autoLockTimer;
     private final AtomicLong lastActivityTime = new AtomicLong();
     private long autoLockTimeoutMs = DEFAULT_TIMEOUT_MS;
+    private int inlineThreshold = VirtualFileSystem.DEFAULT_INLINE_THRESHOLD;
+    private long readCacheBytes = VaultContainer.DEFAULT_CHUNK_CACHE_BYTES;
     private Runnable onAutoLockCallback;
 
     public void createVault(Path vaultPath, char[] password) {
@@ -46,10 +62,12 @@ public class VaultService implements Closeable {
 
         try {
             container = new VaultContainer(vaultPath);
+            container.setChunkCacheCapacity(readCacheBytes);
             container.create(password.clone());
-            vfs = new VirtualFileSystem(container);
+            vfs = new VirtualFileSystem(container, inlineThreshold);
             currentVaultPath = vaultPath;
             startAutoLockTimer();
+            startCompaction();
         } catch (Exception e) {
             close();
             throw e;
@@ -65,10 +83,12 @@ public class VaultService implements Closeable {
 
         try {
             container = new VaultContainer(vaultPath);
+            container.setChunkCacheCapacity(readCacheBytes);
             container.open(password.clone());
-            vfs = new VirtualFileSystem(container);
+            vfs = new VirtualFileSystem(container, inlineThreshold);
             currentVaultPath = vaultPath;
             startAutoLockTimer();
+            startCompaction();
         } catch (Exception e) {
             close();
             throw e;
@@ -80,8 +100,11 @@ public class VaultService implements Closeable {
     @Override
     public void close() {
         stopAutoLockTimer();
+        stopCompaction();
+        compactor = null;
 
         if (vfs != null) {
+            vfs.close();
             vfs = null;
         }
 
@@ -119,18 +142,92 @@ public class VaultService implements Closeable {
         return vfs.createFile(path, content);
     }
 
+    public VfsEntry createFile(String path, InputStream content) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.createFile(path, content != null ? new ActivityTrackingInputStream(content) : null);
+    }
+
+    public VfsEntry createFile(String path, ReadableByteChannel content) {
+        return createFile(path, content != null ? Channels.newInputStream(content) : null);
+    }
+
+    public StagedFile stageFile(InputStream content) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.stageFile(content != null ? new ActivityTrackingInputStream(content) : null);
+    }
+
+    public VfsEntry commitStagedFile(String path, StagedFile staged) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.commitStagedFile(path, staged);
+    }
+
     public byte[] readFile(String path) {
         ensureVaultOpen();
         touchActivity();
         return vfs.readFile(path);
     }
 
+    public InputStream openRead(String path) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.openRead(path);
+    }
+
+    public SeekableByteChannel openChannel(String path) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.openChannel(path);
+    }
+
+    public byte[] readRange(String path, long offset, int length) {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.readRange(path, offset, length);
+    }
+
+    public long transferTo(String path, Path target) throws IOException {
+        ensureVaultOpen();
+        touchActivity();
+        return vfs.transferTo(path, target);
+    }
+
     public void writeFile(String path, byte[] content) {
         ensureVaultOpen();
         touchActivity();
         vfs.writeFile(path, content);
     }
 
+    public void writeFile(String path, InputStream content) {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.writeFile(path, content != null ? new ActivityTrackingInputStream(content) : null);
+    }
+
+    public void writeFile(String path, ReadableByteChannel content) {
+        writeFile(path, content != null ? Channels.newInputStream(content) : null);
+    }
+
+    public void writeRange(String path, long offset, byte[] data) {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.writeRange(path, offset, data);
+    }
+
+    public void append(String path, byte[] data) {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.append(path, data);
+    }
+
+    public void truncate(String path, long size) {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.truncate(path, size);
+    }
+
     public void delete(String path) {
         ensureVaultOpen();
         touchActivity();
@@ -155,6 +252,98 @@ public class VaultService implements Closeable {
         return vfs.getEntry(path);
     }
 
+    public SpaceStats getSpaceStats() {
+        ensureVaultOpen();
+        return container.getSpaceStats();
+    }
+
+    public void setCompressionEnabled(boolean enabled) {
+        ensureVaultOpen();
+        touchActivity();
+        container.setCompressionCodec(enabled ? DeflateChunkCodec.ID : ChunkCodecs.NONE);
+    }
+
+    public boolean isCompressionEnabled() {
+        ensureVaultOpen();
+        return container.getCompressionCodec() != ChunkCodecs.NONE;
+    }
+
+    public boolean trainCompressionDictionary() {
+        ensureVaultOpen();
+        touchActivity();
+        return container.trainDictionary();
+    }
+
+    public void setReadCacheSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Read cache size must not be negative");
+        }
+        this.readCacheBytes = bytes;
+        if (isVaultOpen()) {
+            container.setChunkCacheCapacity(bytes);
+        }
+    }
+
+    public long getReadCacheSize() {
+        return readCacheBytes;
+    }
+
+    public ChunkCacheStats getReadCacheStats() {
+        ensureVaultOpen();
+        return container.getChunkCacheStats();
+    }
+
+    public void startCompaction() {
+        ensureVaultOpen();
+        if (compactor == null) {
+            compactor = new VaultCompactor(container);
+        }
+        compactor.start();
+    }
+
+    public void stopCompaction() {
+        if (compactor != null) {
+            compactor.stop();
+        }
+    }
+
+    public long compactNow() {
+        ensureVaultOpen();
+        touchActivity();
+        if (compactor == null) {
+            compactor = new VaultCompactor(container);
+        }
+        return compactor.compactFully();
+    }
+
+    public CompactionProgress getCompactionProgress() {
+        ensureVaultOpen();
+        return compactor.getProgress();
+    }
+
+    public Batch beginBatch() {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.beginBatch();
+        return new Batch();
+    }
+
+    public void commitBatch() {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.commitBatch();
+    }
+
+    public void rollbackBatch() {
+        ensureVaultOpen();
+        touchActivity();
+        vfs.rollbackBatch();
+    }
+
+    public boolean isBatchActive() {
+        return isVaultOpen() && vfs.isBatchActive();
+    }
+
     public void changePassword(char[] currentPassword, char[] newPassword) {
         ensureVaultOpen();
         touchActivity();
@@ -178,6 +367,17 @@ public class VaultService implements Closeable {
         return autoLockTimeoutMs;
     }
 
+    public void setInlineThreshold(int threshold) {
+        this.inlineThreshold = VirtualFileSystem.checkInlineThreshold(threshold);
+        if (isVaultOpen()) {
+            vfs.setInlineThreshold(threshold);
+        }
+    }
+
+    public int getInlineThreshold() {
+        return inlineThreshold;
+    }
+
     public void setOnAutoLockCallback(Runnable callback) {
         this.onAutoLockCallback = callback;
     }
@@ -223,4 +423,58 @@ public class VaultService implements Closeable {
             Arrays.fill(password, '\0');
         }
     }
+
+    public final class Batch implements AutoCloseable {
+        private boolean finished;
+
+        private Batch() {
+        }
+
+        public void commit() {
+            ensureActive();
+            finished = true;
+            commitBatch();
+        }
+
+        public void rollback() {
+            ensureActive();
+            finished = true;
+            rollbackBatch();
+        }
+
+        @Override
+        public void close() {
+            if (!finished) {
+                finished = true;
+                if (isBatchActive()) {
+                    rollbackBatch();
+                }
+            }
+        }
+
+        private void ensureActive() {
+            if (finished) {
+                throw new IllegalStateException("Batch has already been completed");
+            }
+        }
+    }
+
+    private class ActivityTrackingInputStream extends FilterInputStream {
+
+        ActivityTrackingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            touchActivity();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            touchActivity();
+            return super.read(b, off, len);
+        }
+    }
 }
@@ -19,7 +19,12 @@ import com.aegisvault.crypto.experimental.CryptoOptionsDialog;
 import com.aegisvault.crypto.experimental.CryptoSettings;
 import com.aegisvault.crypto.experimental.EntropyCollectionDialog;
 import com.aegisvault.exception.AuthenticationException;
+import com.aegisvault.pipeline.DirectoryScan;
+import com.aegisvault.pipeline.DirectoryScanner;
+import com.aegisvault.pipeline.ImportListener;
+import com.aegisvault.pipeline.ImportPipeline;
 import com.aegisvault.service.VaultService;
+import com.aegisvault.util.ImportExportUtil;
 import com.aegisvault.vfs.VfsEntry;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -39,6 +44,8 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
@@ -47,8 +54,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.Preferences;
-import java.util.stream.Stream;
 
 public class MainController {
 
@@ -517,10 +524,9 @@ public class MainController {
 
         if (files != null && !files.isEmpty()) {
             if (files.size() == 1 && files.get(0).length() < 1024 * 1024) {
-                try {
-                    File file = files.get(0);
-                    byte[] content = Files.readAllBytes(file.toPath());
-                    String targetPath = currentPath.equals("/") ? "/" + file.getName() : currentPath + "/" + file.getName();
+                File file = files.get(0);
+                String targetPath = currentPath.equals("/") ? "/" + file.getName() : currentPath + "/" + file.getName();
+                try (InputStream content = Files.newInputStream(file.toPath())) {
                     vaultService.createFile(targetPath, content);
                     refreshFileList();
                     updateStatus("File imported: " + file.getName());
@@ -554,9 +560,8 @@ public class MainController {
                     updateMessage("Importing: " + file.getName() + " (" + formatFileSize(file.length()) + ")");
                     updateProgress(i, total);
 
-                    try {
-                        byte[] content = Files.readAllBytes(file.toPath());
-                        String targetPath = currentPath.equals("/") ? "/" + file.getName() : currentPath + "/" + file.getName();
+                    String targetPath = currentPath.equals("/") ? "/" + file.getName() : currentPath + "/" + file.getName();
+                    try (InputStream content = Files.newInputStream(file.toPath())) {
                         vaultService.createFile(targetPath, content);
                         successCount.incrementAndGet();
                     } catch (Exception ex) {
@@ -570,9 +575,7 @@ public class MainController {
 
         progressDialog.bindTask(importTask);
 
-        Thread importThread = new Thread(importTask);
-        importThread.setDaemon(true);
-        importThread.start();
+        Thread.ofVirtual().name("VaultImport").start(importTask);
 
         progressDialog.showAndWait();
 
@@ -617,28 +620,52 @@ public class MainController {
 
         Task<Void> importTask = new Task<>() {
             @Override
-            protected Void call() {
-                List<Path> allFiles;
-                try (Stream<Path> walk = Files.walk(folder.toPath())) {
-                    allFiles = walk.filter(Files::isRegularFile).toList();
-                } catch (Exception ex) {
-                    allFiles = List.of();
-                }
-
-                int total = allFiles.size();
+            protected Void call() throws IOException {
+                DirectoryScan scan = new DirectoryScanner().scan(folder.toPath());
+                long totalBytes = Math.max(1, scan.getTotalBytes());
                 updateTitle("Importing Folder");
-                updateMessage("Importing: " + folder.getName());
+                updateMessage("Importing: " + folder.getName() + " (" + scan.getFileCount() + " files, "
+                        + formatFileSize(scan.getTotalBytes()) + ")");
+
+                String folderName = folder.getName();
+                String targetPath = currentPath.equals("/") ? "/" + folderName : currentPath + "/" + folderName;
+                AtomicLong processedBytes = new AtomicLong(0);
+                ImportListener listener = new ImportListener() {
+                    @Override
+                    public void onFileImported(Path source, String target, long size) {
+                        successCount.incrementAndGet();
+                        progress(source, size);
+                    }
+
+                    @Override
+                    public void onFileFailed(Path source, String target, Exception error) {
+                        failCount.incrementAndGet();
+                        progress(source, source.toFile().length());
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return progressDialog.isCancelled();
+                    }
 
-                importFolderRecursiveWithProgress(folder.toPath(), currentPath, successCount, failCount, progressDialog, new AtomicInteger(0), total);
+                    private void progress(Path source, long size) {
+                        long processed = processedBytes.addAndGet(size);
+                        progressDialog.updateProgress(Math.min(1.0, (double) processed / totalBytes),
+                                "Importing: " + source.getFileName());
+                    }
+                };
+
+                try (VaultService.Batch batch = vaultService.beginBatch()) {
+                    new ImportPipeline(vaultService).importScan(scan, targetPath, listener);
+                    batch.commit();
+                }
                 return null;
             }
         };
 
         progressDialog.bindTask(importTask);
 
-        Thread importThread = new Thread(importTask);
-        importThread.setDaemon(true);
-        importThread.start();
+        Thread.ofVirtual().name("VaultImport").start(importTask);
 
         progressDialog.showAndWait();
 
@@ -654,45 +681,6 @@ public class MainController {
         });
     }
 
-    private void importFolderRecursiveWithProgress(Path source, String targetBase,
-            AtomicInteger successCount, AtomicInteger failCount, ProgressDialog progressDialog,
-            AtomicInteger processedCount, int totalFiles) {
-
-        if (progressDialog.isCancelled()) return;
-
-        String folderName = source.getFileName().toString();
-        String targetPath = targetBase.equals("/") ? "/" + folderName : targetBase + "/" + folderName;
-
-        try {
-            vaultService.createDirectory(targetPath);
-        } catch (Exception ex) {
-            return;
-        }
-
-        File[] children = source.toFile().listFiles();
-        if (children != null) {
-            for (File child : children) {
-                if (progressDialog.isCancelled()) break;
-
-                if (child.isDirectory()) {
-                    importFolderRecursiveWithProgress(child.toPath(), targetPath, successCount, failCount, progressDialog, processedCount, totalFiles);
-                } else {
-                    try {
-                        byte[] content = Files.readAllBytes(child.toPath());
-                        String filePath = targetPath + "/" + child.getName();
-                        vaultService.createFile(filePath, content);
-                        successCount.incrementAndGet();
-                    } catch (Exception ex) {
-                        failCount.incrementAndGet();
-                    }
-                    int processed = processedCount.incrementAndGet();
-                    progressDialog.updateProgress((double) processed / totalFiles, "Importing: " + child.getName());
-                }
-            }
-        }
-    }
-
-
     private void handleExportSelected() {
         if (!vaultService.isVaultOpen()) return;
 
@@ -733,8 +721,7 @@ public class MainController {
             if (file != null) {
                 try {
                     String sourcePath = currentPath.equals("/") ? "/" + selected.getName() : currentPath + "/" + selected.getName();
-                    byte[] content = vaultService.readFile(sourcePath);
-                    Files.write(file.toPath(), content);
+                    vaultService.transferTo(sourcePath, file.toPath());
                     updateStatus("✓ File exported: " + file.getName());
                     showExportReminder();
                 } catch (Exception ex) {
@@ -773,10 +760,9 @@ public class MainController {
 
                     try {
                         if (entry.isDirectory()) {
-                            exportFolderRecursive(sourcePath, targetDir);
+                            ImportExportUtil.exportDirectory(vaultService, sourcePath, targetDir);
                         } else {
-                            byte[] content = vaultService.readFile(sourcePath);
-                            Files.write(targetDir.resolve(entry.getName()), content);
+                            vaultService.transferTo(sourcePath, targetDir.resolve(entry.getName()));
                         }
                         successCount.incrementAndGet();
                     } catch (Exception ex) {
@@ -790,9 +776,7 @@ public class MainController {
 
         progressDialog.bindTask(exportTask);
 
-        Thread exportThread = new Thread(exportTask);
-        exportThread.setDaemon(true);
-        exportThread.start();
+        Thread.ofVirtual().name("VaultExport").start(exportTask);
 
         progressDialog.showAndWait();
 
@@ -819,23 +803,6 @@ public class MainController {
         reminder.showAndWait();
     }
 
-    private void exportFolderRecursive(String sourcePath, Path targetDir) throws Exception {
-        VfsEntry entry = vaultService.getEntry(sourcePath);
-        Path targetPath = targetDir.resolve(entry.getName());
-
-        if (entry.isDirectory()) {
-            Files.createDirectories(targetPath);
-            List<VfsEntry> children = vaultService.listDirectory(sourcePath);
-            for (VfsEntry child : children) {
-                String childPath = sourcePath.equals("/") ? "/" + child.getName() : sourcePath + "/" + child.getName();
-                exportFolderRecursive(childPath, targetPath);
-            }
-        } else {
-            byte[] content = vaultService.readFile(sourcePath);
-            Files.write(targetPath, content);
-        }
-    }
-
     private void handleNewFolder() {
         if (!vaultService.isVaultOpen()) {
             showError("No Vault Open", "Please open or create a vault first.");
@@ -15,19 +15,25 @@
  */
 package com.aegisvault.util;
 
+import com.aegisvault.pipeline.ImportPipeline;
 import com.aegisvault.service.VaultService;
 import com.aegisvault.vfs.VfsEntry;
 
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public final class ImportExportUtil {
 
+    public static final int DEFAULT_EXPORT_CONCURRENCY = 16;
+
     private ImportExportUtil() {
     }
 
@@ -36,46 +42,32 @@ public final class ImportExportUtil {
             throw new IllegalArgumentException("Source must be a regular file");
         }
 
-        byte[] content = Files.readAllBytes(source);
         String targetPath = normalizePath(targetDir, source.getFileName().toString());
-        service.createFile(targetPath, content);
+        try (InputStream content = Files.newInputStream(source)) {
+            service.createFile(targetPath, content);
+        }
         return 1;
     }
 
     public static int importDirectory(VaultService service, Path source, String targetDir) throws IOException {
+        return importDirectory(service, source, targetDir, ImportPipeline.DEFAULT_READ_CONCURRENCY);
+    }
+
+    public static int importDirectory(VaultService service, Path source, String targetDir, int concurrency)
+            throws IOException {
         if (!Files.isDirectory(source)) {
             throw new IllegalArgumentException("Source must be a directory");
         }
+        ImportPipeline pipeline = new ImportPipeline(service, Runtime.getRuntime().availableProcessors(),
+                concurrency, ImportPipeline.DEFAULT_QUEUE_CAPACITY, ImportPipeline.DEFAULT_BUFFER_BYTES);
 
-        int[] count = {0};
         String basePath = normalizePath(targetDir, source.getFileName().toString());
-        service.createDirectory(basePath);
-        count[0]++;
-
-        Files.walkFileTree(source, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                if (!dir.equals(source)) {
-                    String relativePath = source.relativize(dir).toString().replace("\\", "/");
-                    String vaultPath = normalizePath(basePath, relativePath);
-                    service.createDirectory(vaultPath);
-                    count[0]++;
-                }
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                String relativePath = source.relativize(file).toString().replace("\\", "/");
-                String vaultPath = normalizePath(basePath, relativePath);
-                byte[] content = Files.readAllBytes(file);
-                service.createFile(vaultPath, content);
-                count[0]++;
-                return FileVisitResult.CONTINUE;
-            }
-        });
-
-        return count[0];
+        int count;
+        try (VaultService.Batch batch = service.beginBatch()) {
+            count = pipeline.importDirectory(source, basePath, null);
+            batch.commit();
+        }
+        return count;
     }
 
     public static int exportFile(VaultService service, String sourcePath, Path targetDir) throws IOException {
@@ -85,9 +77,8 @@ public final class ImportExportUtil {
         }
 
         if (entry.isFile()) {
-            byte[] content = service.readFile(sourcePath);
             Path targetFile = targetDir.resolve(entry.getName());
-            Files.write(targetFile, content);
+            service.transferTo(sourcePath, targetFile);
             return 1;
         } else {
             return exportDirectory(service, sourcePath, targetDir);
@@ -95,29 +86,19 @@ public final class ImportExportUtil {
     }
 
     public static int exportDirectory(VaultService service, String sourcePath, Path targetDir) throws IOException {
+        return exportDirectory(service, sourcePath, targetDir, DEFAULT_EXPORT_CONCURRENCY);
+    }
+
+    public static int exportDirectory(VaultService service, String sourcePath, Path targetDir, int concurrency)
+            throws IOException {
         VfsEntry entry = service.getEntry(sourcePath);
         if (entry == null || !entry.isDirectory()) {
             throw new IllegalArgumentException("Source must be a directory: " + sourcePath);
         }
-
-        int count = 0;
-        Path targetPath = targetDir.resolve(entry.getName());
-        Files.createDirectories(targetPath);
-        count++;
-
-        List<VfsEntry> children = service.listDirectory(sourcePath);
-        for (VfsEntry child : children) {
-            String childPath = normalizePath(sourcePath, child.getName());
-            if (child.isDirectory()) {
-                count += exportDirectory(service, childPath, targetPath);
-            } else {
-                byte[] content = service.readFile(childPath);
-                Files.write(targetPath.resolve(child.getName()), content);
-                count++;
-            }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive");
         }
-
-        return count;
+        return new ParallelExport(service, concurrency).run(sourcePath, targetDir.resolve(entry.getName()));
     }
 
     private static String normalizePath(String base, String name) {
@@ -126,4 +107,86 @@ public final class ImportExportUtil {
         }
         return base + "/" + name;
     }
+
+    private static final class ParallelExport {
+        private final VaultService service;
+        private final Semaphore slots;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        private ParallelExport(VaultService service, int concurrency) {
+            this.service = service;
+            this.slots = new Semaphore(concurrency);
+        }
+
+        private int run(String sourcePath, Path targetPath) throws IOException {
+            int count;
+            try {
+                count = exportTree(sourcePath, targetPath);
+            } finally {
+                awaitTransfers();
+            }
+            Exception error = failure.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            if (error != null) {
+                throw (RuntimeException) error;
+            }
+            return count;
+        }
+
+        private int exportTree(String sourcePath, Path targetPath) throws IOException {
+            Files.createDirectories(targetPath);
+            int count = 1;
+            for (VfsEntry child : service.listDirectory(sourcePath)) {
+                if (failure.get() != null) {
+                    break;
+                }
+                String childPath = normalizePath(sourcePath, child.getName());
+                Path childTarget = targetPath.resolve(child.getName());
+                if (child.isDirectory()) {
+                    count += exportTree(childPath, childTarget);
+                } else {
+                    transfer(childPath, childTarget);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void transfer(String sourcePath, Path target) throws IOException {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Export interrupted");
+            }
+            executor.execute(() -> {
+                try {
+                    service.transferTo(sourcePath, target);
+                } catch (IOException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+
+        private void awaitTransfers() {
+            executor.shutdown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.vfs;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+final class EntryTrie {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final EntryTrie EMPTY = new EntryTrie(null, 0);
+
+    private final Object[] root;
+    private final int size;
+
+    private EntryTrie(Object[] root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    static EntryTrie empty() {
+        return EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    VfsEntry get(String id) {
+        int hash = id.hashCode();
+        Object[] node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            Object slot = node[(hash >>> shift) & MASK];
+            if (slot instanceof VfsEntry) {
+                VfsEntry entry = (VfsEntry) slot;
+                return id.equals(entry.getId()) ? entry : null;
+            }
+            if (slot instanceof VfsEntry[]) {
+                for (VfsEntry entry : (VfsEntry[]) slot) {
+                    if (id.equals(entry.getId())) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+            node = (Object[]) slot;
+        }
+        return null;
+    }
+
+    EntryTrie put(VfsEntry entry) {
+        boolean replaced = get(entry.getId()) != null;
+        Object[] updated = insert(root != null ? root : new Object[WIDTH], entry, entry.getId().hashCode(), 0);
+        return new EntryTrie(updated, replaced ? size : size + 1);
+    }
+
+    EntryTrie remove(String id) {
+        if (get(id) == null) {
+            return this;
+        }
+        Object[] updated = delete(root, id, id.hashCode(), 0);
+        return updated != null ? new EntryTrie(updated, size - 1) : EMPTY;
+    }
+
+    Collection<VfsEntry> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<VfsEntry> iterator() {
+                return new EntryIterator(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static Object[] insert(Object[] node, VfsEntry entry, int hash, int shift) {
+        Object[] copy = node.clone();
+        int index = (hash >>> shift) & MASK;
+        Object slot = node[index];
+        if (slot == null) {
+            copy[index] = entry;
+        } else if (slot instanceof VfsEntry) {
+            VfsEntry existing = (VfsEntry) slot;
+            if (existing.getId().equals(entry.getId())) {
+                copy[index] = entry;
+            } else if (shift + BITS >= Integer.SIZE) {
+                copy[index] = new VfsEntry[]{existing, entry};
+            } else {
+                Object[] child = insert(new Object[WIDTH], existing, existing.getId().hashCode(), shift + BITS);
+                copy[index] = insert(child, entry, hash, shift + BITS);
+            }
+        } else if (slot instanceof VfsEntry[]) {
+            copy[index] = insertCollision((VfsEntry[]) slot, entry);
+        } else {
+            copy[index] = insert((Object[]) slot, entry, hash, shift + BITS);
+        }
+        return copy;
+    }
+
+    private static VfsEntry[] insertCollision(VfsEntry[] bucket, VfsEntry entry) {
+        for (int i = 0; i < bucket.length; i++) {
+            if (bucket[i].getId().equals(entry.getId())) {
+                VfsEntry[] copy = bucket.clone();
+                copy[i] = entry;
+                return copy;
+            }
+        }
+        VfsEntry[] grown = new VfsEntry[bucket.length + 1];
+        System.arraycopy(bucket, 0, grown, 0, bucket.length);
+        grown[bucket.length] = entry;
+        return grown;
+    }
+
+    private static Object[] delete(Object[] node, String id, int hash, int shift) {
+        int index = (hash >>> shift) & MASK;
+        Object slot = node[index];
+        Object replacement;
+        if (slot instanceof VfsEntry) {
+            replacement = null;
+        } else if (slot instanceof VfsEntry[]) {
+            VfsEntry[] bucket = (VfsEntry[]) slot;
+            VfsEntry[] shrunk = new VfsEntry[bucket.length - 1];
+            int next = 0;
+            for (VfsEntry entry : bucket) {
+                if (!id.equals(entry.getId())) {
+                    shrunk[next++] = entry;
+                }
+            }
+            replacement = shrunk.length == 1 ? shrunk[0] : shrunk;
+        } else {
+            replacement = delete((Object[]) slot, id, hash, shift + BITS);
+        }
+        Object[] copy = node.clone();
+        copy[index] = replacement;
+        for (Object remaining : copy) {
+            if (remaining != null) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    private static final class EntryIterator implements Iterator<VfsEntry> {
+        private final Deque<Object[]> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private VfsEntry[] bucket;
+        private int bucketPosition;
+        private VfsEntry next;
+
+        private EntryIterator(Object[] root) {
+            if (root != null) {
+                nodes.push(root);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public VfsEntry next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            VfsEntry current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            next = null;
+            if (bucket != null) {
+                if (bucketPosition < bucket.length) {
+                    next = bucket[bucketPosition++];
+                    return;
+                }
+                bucket = null;
+            }
+            while (!nodes.isEmpty()) {
+                Object[] node = nodes.peek();
+                int position = positions.pop();
+                if (position == WIDTH) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object slot = node[position];
+                if (slot instanceof VfsEntry) {
+                    next = (VfsEntry) slot;
+                    return;
+                }
+                if (slot instanceof VfsEntry[]) {
+                    bucket = (VfsEntry[]) slot;
+                    bucketPosition = 1;
+                    next = bucket[0];
+                    return;
+                }
+                if (slot != null) {
+                    nodes.push((Object[]) slot);
+                    positions.push(0);
+                }
+            }
+        }
+    }
+}
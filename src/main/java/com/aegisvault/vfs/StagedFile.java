@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.vfs;
+
+import com.aegisvault.container.VaultContainer;
+
+import java.util.Arrays;
+
+public final class StagedFile {
+
+    private final String id;
+    private final byte[] inlineContent;
+    private final VaultContainer.ChunkOutputStream stream;
+    private final long size;
+    private boolean finished;
+
+    StagedFile(String id, byte[] inlineContent, VaultContainer.ChunkOutputStream stream, long size) {
+        this.id = id;
+        this.inlineContent = inlineContent;
+        this.stream = stream;
+        this.size = size;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isInline() {
+        return stream == null;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void discard() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (stream != null) {
+            stream.abort();
+        }
+        if (inlineContent != null) {
+            Arrays.fill(inlineContent, (byte) 0);
+        }
+    }
+
+    String getId() {
+        return id;
+    }
+
+    byte[] getInlineContent() {
+        return inlineContent;
+    }
+
+    VaultContainer.ChunkOutputStream getStream() {
+        return stream;
+    }
+
+    void markFinished() {
+        finished = true;
+    }
+}
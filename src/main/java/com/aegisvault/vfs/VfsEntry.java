@@ -26,6 +26,10 @@ public class VfsEntry {
     private long size;
     private long createdAt;
     private long modifiedAt;
+    private byte[] inlineContent;
+    private String contentId;
+    private int inlinePage = -1;
+    private long generation;
 
     public VfsEntry(String name, boolean directory, String parentId) {
         this.id = UUID.randomUUID().toString();
@@ -85,6 +89,50 @@ public class VfsEntry {
         return modifiedAt;
     }
 
+    public boolean isInline() {
+        return inlineContent != null;
+    }
+
+    byte[] getInlineContent() {
+        return inlineContent;
+    }
+
+    void setInlineContent(byte[] inlineContent) {
+        this.inlineContent = inlineContent;
+    }
+
+    String getContentId() {
+        return contentId != null ? contentId : id;
+    }
+
+    void setContentId(String contentId) {
+        this.contentId = id.equals(contentId) ? null : contentId;
+    }
+
+    int getInlinePage() {
+        return inlinePage;
+    }
+
+    void setInlinePage(int inlinePage) {
+        this.inlinePage = inlinePage;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    VfsEntry copy() {
+        VfsEntry copy = new VfsEntry(id, name, directory, parentId, size, createdAt, modifiedAt);
+        copy.inlineContent = inlineContent != null ? inlineContent.clone() : null;
+        copy.contentId = contentId;
+        copy.inlinePage = inlinePage;
+        return copy;
+    }
+
     public void touch() {
         this.modifiedAt = System.currentTimeMillis();
     }
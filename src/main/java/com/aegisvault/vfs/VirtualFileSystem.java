@@ -20,55 +20,120 @@ import com.aegisvault.exception.VfsException;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 public class VirtualFileSystem {
 
     private static final String ROOT_ID = "root";
-    private static final String VFS_METADATA_KEY = "__vfs_metadata__";
+    private static final String LEGACY_METADATA_KEY = "__vfs_metadata__";
+
+    public static final int DEFAULT_INLINE_THRESHOLD = 512;
+    public static final int MAX_INLINE_THRESHOLD = 64 * 1024;
+    static final int INLINE_PAGE_SIZE = 64 * 1024;
 
     private final VaultContainer container;
-    private final Map<String, VfsEntry> entries;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Set<ReadPin> readers = ConcurrentHashMap.newKeySet();
+    private final Set<String> freshContent = new HashSet<>();
+    private final List<String> retiring = new ArrayList<>();
+    private final Map<String, Long> retiredContent = new LinkedHashMap<>();
+    private EntryTrie entries = EntryTrie.empty();
+    private List<InlinePage> inlinePages = new ArrayList<>();
+    private List<InlinePage> batchPages;
+    private int fillPage;
+    private long generation = 1;
+    private volatile Snapshot published = new Snapshot(EntryTrie.empty(), 0);
+    private volatile int inlineThreshold;
     private VfsEntry root;
+    private volatile boolean batchActive;
+    private volatile boolean closed;
+    private boolean metadataDirty;
 
     public VirtualFileSystem(VaultContainer container) {
+        this(container, DEFAULT_INLINE_THRESHOLD);
+    }
+
+    public VirtualFileSystem(VaultContainer container, int inlineThreshold) {
         if (!container.isOpen()) {
             throw new IllegalArgumentException("Container must be open");
         }
         this.container = container;
-        this.entries = new HashMap<>();
-        loadOrInitialize();
+        this.inlineThreshold = checkInlineThreshold(inlineThreshold);
+        writeLock.lock();
+        try {
+            loadOrInitialize();
+        } finally {
+            release();
+        }
+    }
+
+    public int getInlineThreshold() {
+        return inlineThreshold;
+    }
+
+    public void setInlineThreshold(int inlineThreshold) {
+        this.inlineThreshold = checkInlineThreshold(inlineThreshold);
+    }
+
+    public static int checkInlineThreshold(int inlineThreshold) {
+        if (inlineThreshold < 0 || inlineThreshold > MAX_INLINE_THRESHOLD) {
+            throw new IllegalArgumentException("Inline threshold must be between 0 and " + MAX_INLINE_THRESHOLD);
+        }
+        return inlineThreshold;
     }
 
     private void loadOrInitialize() {
-        byte[] metadata = container.readFile(VFS_METADATA_KEY);
+        byte[] metadata = container.readMetadata();
         if (metadata != null) {
             deserializeEntries(metadata);
+            Arrays.fill(metadata, (byte) 0);
+            if (inlinePages.stream().anyMatch(page -> page.dirty)) {
+                persistMetadata();
+            }
+        } else if (container.containsFile(LEGACY_METADATA_KEY)) {
+            deserializeEntries(container.readFile(LEGACY_METADATA_KEY));
+            persistMetadata();
+            container.deleteFile(LEGACY_METADATA_KEY);
         } else {
-            root = new VfsEntry(ROOT_ID, "", true, null, 0, System.currentTimeMillis(), System.currentTimeMillis());
-            entries.put(ROOT_ID, root);
+            root = add(new VfsEntry(ROOT_ID, "", true, null, 0, System.currentTimeMillis(), System.currentTimeMillis()));
             persistMetadata();
         }
     }
 
     public List<VfsEntry> list(String path) {
-        VfsEntry entry = resolvePath(path);
+        EntryTrie view = view();
+        VfsEntry entry = resolvePath(view, path);
         if (entry == null) {
             throw new VfsException("Path not found: " + path);
         }
         if (!entry.isDirectory()) {
             throw new VfsException("Not a directory: " + path);
         }
-        return entries.values().stream()
+        return view.values().stream()
                 .filter(e -> entry.getId().equals(e.getParentId()))
                 .collect(Collectors.toList());
     }
@@ -79,94 +144,583 @@ public class VirtualFileSystem {
             throw new VfsException("Invalid path");
         }
 
-        VfsEntry parent = resolveParent(parts);
-        String name = parts[parts.length - 1];
+        writeLock.lock();
+        try {
+            VfsEntry parent = resolveParent(entries, parts);
+            String name = parts[parts.length - 1];
 
-        validateName(name);
-        checkDuplicate(parent.getId(), name);
+            validateName(name);
+            checkDuplicate(entries, parent.getId(), name);
 
-        VfsEntry entry = new VfsEntry(name, true, parent.getId());
-        entries.put(entry.getId(), entry);
-        persistMetadata();
-        return entry;
+            VfsEntry entry = add(new VfsEntry(name, true, parent.getId()));
+            persistMetadata();
+            return entry;
+        } finally {
+            release();
+        }
     }
 
     public VfsEntry createFile(String path, byte[] content) {
+        writeLock.lock();
+        try {
+            VfsEntry entry = add(newFileEntry(path));
+            entry.setSize(content != null ? content.length : 0);
+
+            if (content != null && content.length > 0) {
+                storeContent(entry, content);
+            }
+
+            persistMetadata();
+            return entry;
+        } finally {
+            release();
+        }
+    }
+
+    public VfsEntry createFile(String path, InputStream content) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content must not be null");
+        }
+        writeLock.lock();
+        try {
+            VfsEntry entry = newFileEntry(path);
+            storeContent(entry, content);
+            add(entry);
+            persistMetadata();
+            return entry;
+        } finally {
+            release();
+        }
+    }
+
+    public StagedFile stageFile(InputStream content) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content must not be null");
+        }
+        String id = UUID.randomUUID().toString();
+        byte[] head;
+        try {
+            head = content.readNBytes(inlineThreshold + 1);
+        } catch (IOException e) {
+            throw new VfsException("Failed to read file content", e);
+        }
+        if (head.length <= inlineThreshold) {
+            return new StagedFile(id, head.length > 0 ? head : null, null, head.length);
+        }
+        VaultContainer.ChunkOutputStream out = container.openWrite(id);
+        try {
+            out.write(head);
+            out.transferFrom(content);
+            out.seal();
+            return new StagedFile(id, null, out, out.getSize());
+        } catch (IOException e) {
+            out.abort();
+            throw new VfsException("Failed to read file content", e);
+        } catch (RuntimeException e) {
+            out.abort();
+            throw e;
+        } finally {
+            Arrays.fill(head, (byte) 0);
+        }
+    }
+
+    public VfsEntry commitStagedFile(String path, StagedFile staged) {
+        if (staged == null) {
+            throw new IllegalArgumentException("Staged file must not be null");
+        }
+        if (staged.isFinished()) {
+            throw new IllegalStateException("Staged file has already been committed or discarded");
+        }
+        writeLock.lock();
+        try {
+            VfsEntry entry = newFileEntry(path, staged.getId());
+            if (staged.isInline()) {
+                replaceInline(entry, staged.getInlineContent());
+            } else {
+                try {
+                    staged.getStream().close();
+                } catch (IOException e) {
+                    staged.discard();
+                    throw new VfsException("Failed to store file content", e);
+                }
+            }
+            staged.markFinished();
+            entry.setSize(staged.getSize());
+            add(entry);
+            persistMetadata();
+            return entry;
+        } finally {
+            release();
+        }
+    }
+
+    private VfsEntry newFileEntry(String path) {
+        return newFileEntry(path, UUID.randomUUID().toString());
+    }
+
+    private VfsEntry newFileEntry(String path, String id) {
         String[] parts = splitPath(path);
         if (parts.length == 0) {
             throw new VfsException("Invalid path");
         }
 
-        VfsEntry parent = resolveParent(parts);
+        VfsEntry parent = resolveParent(entries, parts);
         String name = parts[parts.length - 1];
 
         validateName(name);
-        checkDuplicate(parent.getId(), name);
+        checkDuplicate(entries, parent.getId(), name);
 
-        VfsEntry entry = new VfsEntry(name, false, parent.getId());
-        entry.setSize(content != null ? content.length : 0);
-        entries.put(entry.getId(), entry);
+        long now = System.currentTimeMillis();
+        freshContent.add(id);
+        return new VfsEntry(id, name, false, parent.getId(), 0, now, now);
+    }
 
-        if (content != null && content.length > 0) {
-            container.writeFile(entry.getId(), content);
+    public byte[] readFile(String path) {
+        ReadPin pin = pin();
+        try {
+            VfsEntry entry = resolveReadableFile(pin.entries, path);
+            if (entry.isInline()) {
+                return entry.getInlineContent().clone();
+            }
+            byte[] data = container.readFile(entry.getContentId());
+            return data != null ? data : new byte[0];
+        } finally {
+            unpin(pin);
         }
+    }
 
-        persistMetadata();
-        return entry;
+    public void writeFile(String path, byte[] content) {
+        writeLock.lock();
+        try {
+            VfsEntry entry = resolveWritableFile(path);
+            storeContent(entry, content != null ? content : new byte[0]);
+            persistMetadata();
+        } finally {
+            release();
+        }
     }
 
-    public byte[] readFile(String path) {
-        VfsEntry entry = resolvePath(path);
+    public void writeFile(String path, InputStream content) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content must not be null");
+        }
+        writeLock.lock();
+        try {
+            VfsEntry entry = resolveWritableFile(path);
+            storeContent(entry, content);
+            persistMetadata();
+        } finally {
+            release();
+        }
+    }
+
+    public InputStream openRead(String path) {
+        ReadPin pin = pin();
+        try {
+            VfsEntry entry = resolveReadableFile(pin.entries, path);
+            if (entry.isInline()) {
+                return new ByteArrayInputStream(entry.getInlineContent().clone());
+            }
+            if (!container.containsFile(entry.getContentId())) {
+                return InputStream.nullInputStream();
+            }
+            return container.openRead(entry.getContentId());
+        } finally {
+            unpin(pin);
+        }
+    }
+
+    public SeekableByteChannel openChannel(String path) {
+        ReadPin pin = pin();
+        try {
+            VfsEntry entry = resolveReadableFile(pin.entries, path);
+            if (entry.isInline()) {
+                return new InlineChannel(entry.getInlineContent().clone());
+            }
+            if (!container.containsFile(entry.getContentId())) {
+                return new InlineChannel(new byte[0]);
+            }
+            return container.openChannel(entry.getContentId());
+        } finally {
+            unpin(pin);
+        }
+    }
+
+    public byte[] readRange(String path, long offset, int length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative");
+        }
+        ReadPin pin = pin();
+        try {
+            VfsEntry entry = resolveReadableFile(pin.entries, path);
+            if (entry.isInline()) {
+                byte[] inline = entry.getInlineContent();
+                int start = (int) Math.min(offset, inline.length);
+                return Arrays.copyOfRange(inline, start, (int) Math.min(inline.length, start + (long) length));
+            }
+            if (!container.containsFile(entry.getContentId())) {
+                return new byte[0];
+            }
+            return container.readRange(entry.getContentId(), offset, length);
+        } finally {
+            unpin(pin);
+        }
+    }
+
+    public long transferTo(String path, Path target) throws IOException {
+        ReadPin pin = pin();
+        try {
+            VfsEntry entry = resolveReadableFile(pin.entries, path);
+            try (OutputStream out = Files.newOutputStream(target)) {
+                if (entry.isInline()) {
+                    out.write(entry.getInlineContent());
+                    return entry.getSize();
+                }
+                if (!container.containsFile(entry.getContentId())) {
+                    return 0;
+                }
+                return container.readFile(entry.getContentId(), out);
+            }
+        } finally {
+            unpin(pin);
+        }
+    }
+
+    private VfsEntry resolveReadableFile(EntryTrie view, String path) {
+        VfsEntry entry = resolvePath(view, path);
         if (entry == null) {
             throw new VfsException("File not found: " + path);
         }
         if (entry.isDirectory()) {
             throw new VfsException("Cannot read directory: " + path);
         }
-        byte[] data = container.readFile(entry.getId());
-        return data != null ? data : new byte[0];
+        return entry;
     }
 
-    public void writeFile(String path, byte[] content) {
-        VfsEntry entry = resolvePath(path);
-        if (entry == null) {
-            throw new VfsException("File not found: " + path);
+    public OutputStream openWrite(String path) {
+        writeLock.lock();
+        try {
+            return new VfsOutputStream(resolveWritableFile(path));
+        } finally {
+            release();
         }
-        if (entry.isDirectory()) {
-            throw new VfsException("Cannot write to directory: " + path);
+    }
+
+    public void writeRange(String path, long offset, byte[] data) {
+        writeLock.lock();
+        try {
+            VfsEntry entry = resolveWritableFile(path);
+            if (!writeInline(entry, offset, data)) {
+                spillInline(entry);
+                String contentId = writableContent(entry, true);
+                container.writeRange(contentId, offset, data);
+                entry.setSize(container.getFileSize(contentId));
+            }
+            persistMetadata();
+        } finally {
+            release();
         }
-        entry.setSize(content != null ? content.length : 0);
-        container.writeFile(entry.getId(), content != null ? content : new byte[0]);
-        persistMetadata();
     }
 
-    public InputStream openRead(String path) {
-        byte[] data = readFile(path);
-        return new ByteArrayInputStream(data);
+    public void append(String path, byte[] data) {
+        writeLock.lock();
+        try {
+            VfsEntry entry = resolveWritableFile(path);
+            if (!writeInline(entry, entry.getSize(), data)) {
+                spillInline(entry);
+                String contentId = writableContent(entry, true);
+                container.append(contentId, data);
+                entry.setSize(container.getFileSize(contentId));
+            }
+            persistMetadata();
+        } finally {
+            release();
+        }
     }
 
-    public OutputStream openWrite(String path) {
-        VfsEntry entry = resolvePath(path);
+    public void truncate(String path, long size) {
+        writeLock.lock();
+        try {
+            if (size < 0) {
+                throw new IllegalArgumentException("Size must not be negative");
+            }
+            VfsEntry entry = resolveWritableFile(path);
+            if (entry.isInline()) {
+                byte[] inline = entry.getInlineContent();
+                if (size < inline.length) {
+                    replaceInline(entry, size > 0 ? Arrays.copyOf(inline, (int) size) : null);
+                    entry.setSize(size);
+                }
+            } else if (size < entry.getSize()) {
+                String contentId = writableContent(entry, true);
+                container.truncate(contentId, size);
+                entry.setSize(container.containsFile(contentId) ? container.getFileSize(contentId) : 0);
+            }
+            persistMetadata();
+        } finally {
+            release();
+        }
+    }
+
+    private void storeContent(VfsEntry entry, byte[] content) {
+        if (content.length <= inlineThreshold) {
+            if (!entry.isInline()) {
+                retireContent(entry.getContentId());
+            }
+            replaceInline(entry, content.length > 0 ? content.clone() : null);
+        } else {
+            container.writeFile(writableContent(entry, false), content);
+            replaceInline(entry, null);
+        }
+        entry.setSize(content.length);
+    }
+
+    private void storeContent(VfsEntry entry, InputStream content) {
+        byte[] head;
+        try {
+            head = content.readNBytes(inlineThreshold + 1);
+        } catch (IOException e) {
+            throw new VfsException("Failed to read file content", e);
+        }
+        try {
+            if (head.length <= inlineThreshold) {
+                storeContent(entry, head);
+                return;
+            }
+            InputStream joined = new SequenceInputStream(new ByteArrayInputStream(head), content);
+            entry.setSize(container.writeFile(writableContent(entry, false), joined));
+            replaceInline(entry, null);
+        } finally {
+            Arrays.fill(head, (byte) 0);
+        }
+    }
+
+    private boolean writeInline(VfsEntry entry, long offset, byte[] data) {
+        if (!entry.isInline() || data == null || offset < 0 || offset + data.length > inlineThreshold) {
+            return false;
+        }
+        byte[] inline = entry.getInlineContent();
+        byte[] updated = Arrays.copyOf(inline, Math.max(inline.length, (int) offset + data.length));
+        System.arraycopy(data, 0, updated, (int) offset, data.length);
+        replaceInline(entry, updated);
+        entry.setSize(updated.length);
+        return true;
+    }
+
+    private void spillInline(VfsEntry entry) {
+        if (entry.isInline()) {
+            container.writeFile(writableContent(entry, false), entry.getInlineContent());
+            replaceInline(entry, null);
+        }
+    }
+
+    private String writableContent(VfsEntry entry, boolean keepContent) {
+        String current = entry.getContentId();
+        if (freshContent.contains(current)) {
+            return current;
+        }
+        String next = UUID.randomUUID().toString();
+        if (!entry.isInline()) {
+            if (keepContent && container.containsFile(current)) {
+                container.copyFile(current, next);
+            }
+            retireContent(current);
+        }
+        freshContent.add(next);
+        entry.setContentId(next);
+        return next;
+    }
+
+    private void retireContent(String contentId) {
+        if (freshContent.remove(contentId)) {
+            container.deleteFile(contentId);
+        } else {
+            retiring.add(contentId);
+        }
+    }
+
+    private void replaceInline(VfsEntry entry, byte[] content) {
+        byte[] previous = entry.getInlineContent();
+        if (previous != null) {
+            releaseInlinePage(entry);
+        }
+        entry.setInlineContent(content);
+        if (content != null) {
+            entry.setInlinePage(reserveInlinePage(entry));
+        }
+        if (previous != null && previous != content) {
+            Arrays.fill(previous, (byte) 0);
+        }
+    }
+
+    private int reserveInlinePage(VfsEntry entry) {
+        int cost = inlineCost(entry);
+        int preferred = entry.getInlinePage();
+        if (preferred >= 0 && preferred < inlinePages.size() && inlinePages.get(preferred).fits(cost)) {
+            return claimInlinePage(preferred, cost);
+        }
+        if (fillPage < inlinePages.size() && inlinePages.get(fillPage).fits(cost)) {
+            return claimInlinePage(fillPage, cost);
+        }
+        for (int page = 0; page < inlinePages.size(); page++) {
+            if (inlinePages.get(page).fits(cost)) {
+                fillPage = page;
+                return claimInlinePage(page, cost);
+            }
+        }
+        inlinePages.add(new InlinePage(null));
+        fillPage = inlinePages.size() - 1;
+        return claimInlinePage(fillPage, cost);
+    }
+
+    private int claimInlinePage(int page, int cost) {
+        InlinePage target = inlinePages.get(page);
+        target.used += cost;
+        target.dirty = true;
+        return page;
+    }
+
+    private void releaseInlinePage(VfsEntry entry) {
+        int page = entry.getInlinePage();
+        if (page >= 0 && page < inlinePages.size()) {
+            InlinePage source = inlinePages.get(page);
+            source.used -= inlineCost(entry);
+            source.dirty = true;
+        }
+    }
+
+    private static int inlineCost(VfsEntry entry) {
+        return 4 + entry.getId().getBytes(StandardCharsets.UTF_8).length + 4 + entry.getInlineContent().length;
+    }
+
+    private void writeInlinePages() {
+        Map<Integer, ByteArrayOutputStream> dirty = new HashMap<>();
+        for (int page = 0; page < inlinePages.size(); page++) {
+            if (inlinePages.get(page).dirty && inlinePages.get(page).used > 0) {
+                dirty.put(page, new ByteArrayOutputStream());
+            }
+        }
+        for (VfsEntry entry : dirty.isEmpty() ? List.<VfsEntry>of() : entries.values()) {
+            ByteArrayOutputStream out = entry.isInline() ? dirty.get(entry.getInlinePage()) : null;
+            if (out == null) {
+                continue;
+            }
+            byte[] idBytes = entry.getId().getBytes(StandardCharsets.UTF_8);
+            byte[] content = entry.getInlineContent();
+            ByteBuffer record = ByteBuffer.allocate(4 + idBytes.length + 4 + content.length)
+                    .order(ByteOrder.BIG_ENDIAN);
+            record.putInt(idBytes.length);
+            record.put(idBytes);
+            record.putInt(content.length);
+            record.put(content);
+            out.writeBytes(record.array());
+            Arrays.fill(record.array(), (byte) 0);
+        }
+        for (int page = 0; page < inlinePages.size(); page++) {
+            InlinePage target = inlinePages.get(page);
+            if (!target.dirty) {
+                continue;
+            }
+            if (target.contentId != null) {
+                retireContent(target.contentId);
+                target.contentId = null;
+            }
+            ByteArrayOutputStream out = dirty.get(page);
+            if (out != null) {
+                String contentId = UUID.randomUUID().toString();
+                byte[] content = out.toByteArray();
+                try {
+                    container.writeFile(contentId, content);
+                } finally {
+                    Arrays.fill(content, (byte) 0);
+                }
+                freshContent.add(contentId);
+                target.contentId = contentId;
+            }
+            target.dirty = false;
+        }
+    }
+
+    private void loadInlinePages() {
+        for (int page = 0; page < inlinePages.size(); page++) {
+            String contentId = inlinePages.get(page).contentId;
+            if (contentId == null) {
+                continue;
+            }
+            byte[] data = container.readFile(contentId);
+            if (data == null) {
+                throw new VfsException("Missing inline page " + page);
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN);
+                while (buffer.hasRemaining()) {
+                    byte[] idBytes = new byte[buffer.getInt()];
+                    buffer.get(idBytes);
+                    byte[] content = new byte[buffer.getInt()];
+                    buffer.get(content);
+                    VfsEntry entry = entries.get(new String(idBytes, StandardCharsets.UTF_8));
+                    if (entry == null || entry.isDirectory() || entry.getSize() != content.length) {
+                        throw new VfsException("Corrupt inline file entry");
+                    }
+                    entry.setInlineContent(content);
+                    entry.setInlinePage(page);
+                    inlinePages.get(page).used += inlineCost(entry);
+                }
+            } finally {
+                Arrays.fill(data, (byte) 0);
+            }
+        }
+    }
+
+    private static List<InlinePage> copyPages(List<InlinePage> pages) {
+        List<InlinePage> copy = new ArrayList<>(pages.size());
+        for (InlinePage page : pages) {
+            copy.add(page.copy());
+        }
+        return copy;
+    }
+
+    private VfsEntry resolveWritableFile(String path) {
+        VfsEntry entry = resolvePath(entries, path);
         if (entry == null) {
             throw new VfsException("File not found: " + path);
         }
         if (entry.isDirectory()) {
             throw new VfsException("Cannot write to directory: " + path);
         }
-        return new VfsOutputStream(entry);
+        return mutable(entry);
     }
 
-    public void delete(String path) {
-        VfsEntry entry = resolvePath(path);
-        if (entry == null) {
-            throw new VfsException("Path not found: " + path);
-        }
-        if (ROOT_ID.equals(entry.getId())) {
-            throw new VfsException("Cannot delete root directory");
+    private VfsEntry mutable(VfsEntry entry) {
+        VfsEntry current = entries.get(entry.getId());
+        if (current.getGeneration() == generation) {
+            return current;
         }
+        return add(current.copy());
+    }
+
+    private VfsEntry add(VfsEntry entry) {
+        entry.setGeneration(generation);
+        entries = entries.put(entry);
+        return entry;
+    }
+
+    public void delete(String path) {
+        writeLock.lock();
+        try {
+            VfsEntry entry = resolvePath(entries, path);
+            if (entry == null) {
+                throw new VfsException("Path not found: " + path);
+            }
+            if (ROOT_ID.equals(entry.getId())) {
+                throw new VfsException("Cannot delete root directory");
+            }
 
-        deleteRecursive(entry);
-        persistMetadata();
+            deleteRecursive(entry);
+            persistMetadata();
+        } finally {
+            release();
+        }
     }
 
     private void deleteRecursive(VfsEntry entry) {
@@ -177,67 +731,161 @@ public class VirtualFileSystem {
             for (VfsEntry child : children) {
                 deleteRecursive(child);
             }
+        } else if (entry.isInline()) {
+            if (entry.getGeneration() == generation) {
+                replaceInline(entry, null);
+            } else {
+                releaseInlinePage(entry);
+            }
         } else {
-            container.deleteFile(entry.getId());
+            retireContent(entry.getContentId());
         }
-        entries.remove(entry.getId());
+        entries = entries.remove(entry.getId());
     }
 
     public void move(String sourcePath, String destinationPath) {
-        VfsEntry source = resolvePath(sourcePath);
-        if (source == null) {
-            throw new VfsException("Source not found: " + sourcePath);
-        }
-        if (ROOT_ID.equals(source.getId())) {
-            throw new VfsException("Cannot move root directory");
-        }
+        writeLock.lock();
+        try {
+            VfsEntry source = resolvePath(entries, sourcePath);
+            if (source == null) {
+                throw new VfsException("Source not found: " + sourcePath);
+            }
+            if (ROOT_ID.equals(source.getId())) {
+                throw new VfsException("Cannot move root directory");
+            }
 
-        String[] destParts = splitPath(destinationPath);
-        if (destParts.length == 0) {
-            throw new VfsException("Invalid destination path");
-        }
+            String[] destParts = splitPath(destinationPath);
+            if (destParts.length == 0) {
+                throw new VfsException("Invalid destination path");
+            }
 
-        VfsEntry destParent = resolveParent(destParts);
-        String newName = destParts[destParts.length - 1];
+            VfsEntry destParent = resolveParent(entries, destParts);
+            String newName = destParts[destParts.length - 1];
 
-        validateName(newName);
-        checkDuplicate(destParent.getId(), newName);
+            validateName(newName);
+            checkDuplicate(entries, destParent.getId(), newName);
 
-        VfsEntry moved = new VfsEntry(
-                source.getId(),
-                newName,
-                source.isDirectory(),
-                destParent.getId(),
-                source.getSize(),
-                source.getCreatedAt(),
-                System.currentTimeMillis()
-        );
-        entries.put(moved.getId(), moved);
-        persistMetadata();
+            VfsEntry moved = new VfsEntry(
+                    source.getId(),
+                    newName,
+                    source.isDirectory(),
+                    destParent.getId(),
+                    source.getSize(),
+                    source.getCreatedAt(),
+                    System.currentTimeMillis()
+            );
+            byte[] inline = source.getInlineContent();
+            boolean owned = source.getGeneration() == generation;
+            moved.setInlineContent(inline != null && !owned ? inline.clone() : inline);
+            moved.setContentId(source.getContentId());
+            moved.setInlinePage(source.getInlinePage());
+            add(moved);
+            persistMetadata();
+        } finally {
+            release();
+        }
     }
 
     public boolean exists(String path) {
-        return resolvePath(path) != null;
+        return resolvePath(view(), path) != null;
     }
 
     public VfsEntry getEntry(String path) {
-        return resolvePath(path);
+        return resolvePath(view(), path);
     }
 
-    private VfsEntry resolvePath(String path) {
+    public void close() {
+        closed = true;
+        if (batchActive && writeLock.isHeldByCurrentThread()) {
+            rollbackBatch();
+        }
+        synchronized (retiredContent) {
+            synchronized (container) {
+                if (container.isBatchActive()) {
+                    container.rollbackBatch();
+                }
+                reclaim(true);
+            }
+        }
+    }
+
+    private EntryTrie view() {
+        return writeLock.isHeldByCurrentThread() ? entries : published.entries;
+    }
+
+    private ReadPin pin() {
+        if (writeLock.isHeldByCurrentThread()) {
+            return new ReadPin(entries, Long.MAX_VALUE);
+        }
+        while (true) {
+            Snapshot snapshot = published;
+            ReadPin pin = new ReadPin(snapshot.entries, snapshot.generation);
+            readers.add(pin);
+            if (published == snapshot) {
+                return pin;
+            }
+            readers.remove(pin);
+        }
+    }
+
+    private void unpin(ReadPin pin) {
+        readers.remove(pin);
+    }
+
+    private void release() {
+        try {
+            if (!batchActive && writeLock.getHoldCount() == 1) {
+                publish();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void publish() {
+        published = new Snapshot(entries, generation);
+        synchronized (retiredContent) {
+            for (String contentId : retiring) {
+                retiredContent.put(contentId, generation);
+            }
+            reclaim(false);
+        }
+        retiring.clear();
+        freshContent.clear();
+        generation++;
+    }
+
+    private void reclaim(boolean all) {
+        long oldest = Long.MAX_VALUE;
+        if (!all) {
+            for (ReadPin pin : readers) {
+                oldest = Math.min(oldest, pin.generation);
+            }
+        }
+        Iterator<Map.Entry<String, Long>> iterator = retiredContent.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> retired = iterator.next();
+            if (retired.getValue() <= oldest) {
+                container.deleteFile(retired.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    private VfsEntry resolvePath(EntryTrie view, String path) {
         if (path == null || path.isEmpty() || "/".equals(path)) {
-            return entries.get(ROOT_ID);
+            return view.get(ROOT_ID);
         }
 
         String[] parts = splitPath(path);
-        VfsEntry current = entries.get(ROOT_ID);
+        VfsEntry current = view.get(ROOT_ID);
 
         for (String part : parts) {
             if (current == null || !current.isDirectory()) {
                 return null;
             }
             String parentId = current.getId();
-            current = entries.values().stream()
+            current = view.values().stream()
                     .filter(e -> parentId.equals(e.getParentId()) && part.equals(e.getName()))
                     .findFirst()
                     .orElse(null);
@@ -245,13 +893,13 @@ public class VirtualFileSystem {
         return current;
     }
 
-    private VfsEntry resolveParent(String[] parts) {
+    private VfsEntry resolveParent(EntryTrie view, String[] parts) {
         if (parts.length == 1) {
-            return entries.get(ROOT_ID);
+            return view.get(ROOT_ID);
         }
         String[] parentParts = new String[parts.length - 1];
         System.arraycopy(parts, 0, parentParts, 0, parentParts.length);
-        VfsEntry parent = resolvePath(String.join("/", parentParts));
+        VfsEntry parent = resolvePath(view, String.join("/", parentParts));
         if (parent == null) {
             throw new VfsException("Parent directory not found");
         }
@@ -290,17 +938,109 @@ public class VirtualFileSystem {
         }
     }
 
-    private void checkDuplicate(String parentId, String name) {
-        boolean exists = entries.values().stream()
+    private void checkDuplicate(EntryTrie view, String parentId, String name) {
+        boolean exists = view.values().stream()
                 .anyMatch(e -> parentId.equals(e.getParentId()) && name.equals(e.getName()));
         if (exists) {
             throw new VfsException("Entry already exists: " + name);
         }
     }
 
+    public void beginBatch() {
+        writeLock.lock();
+        if (batchActive) {
+            writeLock.unlock();
+            throw new IllegalStateException("A batch is already active");
+        }
+        if (closed) {
+            writeLock.unlock();
+            throw new IllegalStateException("File system is closed");
+        }
+        try {
+            container.beginBatch();
+        } catch (RuntimeException e) {
+            writeLock.unlock();
+            throw e;
+        }
+        batchPages = copyPages(inlinePages);
+        batchActive = true;
+        metadataDirty = false;
+    }
+
+    public void commitBatch() {
+        ensureBatch();
+        try {
+            if (closed) {
+                throw new IllegalStateException("File system is closed");
+            }
+            if (metadataDirty) {
+                writeInlinePages();
+                byte[] metadata = serializeEntries();
+                try {
+                    container.writeMetadata(metadata);
+                } finally {
+                    Arrays.fill(metadata, (byte) 0);
+                }
+            }
+            container.commitBatch();
+        } catch (RuntimeException e) {
+            rollbackBatch();
+            throw e;
+        }
+        batchActive = false;
+        metadataDirty = false;
+        batchPages = null;
+        try {
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void rollbackBatch() {
+        ensureBatch();
+        batchActive = false;
+        metadataDirty = false;
+        try {
+            if (container.isBatchActive()) {
+                container.rollbackBatch();
+            }
+        } finally {
+            entries = published.entries;
+            root = entries.get(ROOT_ID);
+            inlinePages = batchPages;
+            batchPages = null;
+            retiring.clear();
+            freshContent.clear();
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isBatchActive() {
+        return batchActive;
+    }
+
+    private void ensureBatch() {
+        if (!batchActive) {
+            throw new IllegalStateException("No batch is active");
+        }
+        if (!writeLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("The batch belongs to another thread");
+        }
+    }
+
     private void persistMetadata() {
+        if (batchActive) {
+            metadataDirty = true;
+            return;
+        }
+        writeInlinePages();
         byte[] metadata = serializeEntries();
-        container.writeFile(VFS_METADATA_KEY, metadata);
+        try {
+            container.writeMetadata(metadata);
+        } finally {
+            Arrays.fill(metadata, (byte) 0);
+        }
     }
 
     private byte[] serializeEntries() {
@@ -332,6 +1072,40 @@ public class VirtualFileSystem {
 
                 baos.write(entryBuffer.array());
             }
+
+            ByteBuffer inlineCount = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+            inlineCount.putInt(0);
+            baos.write(inlineCount.array());
+
+            List<VfsEntry> relocatedEntries = entryList.stream()
+                    .filter(e -> !e.getId().equals(e.getContentId()))
+                    .collect(Collectors.toList());
+            ByteBuffer relocatedCount = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+            relocatedCount.putInt(relocatedEntries.size());
+            baos.write(relocatedCount.array());
+            for (VfsEntry entry : relocatedEntries) {
+                byte[] idBytes = entry.getId().getBytes(StandardCharsets.UTF_8);
+                byte[] contentBytes = entry.getContentId().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer relocatedBuffer = ByteBuffer.allocate(4 + idBytes.length + 4 + contentBytes.length)
+                        .order(ByteOrder.BIG_ENDIAN);
+                relocatedBuffer.putInt(idBytes.length);
+                relocatedBuffer.put(idBytes);
+                relocatedBuffer.putInt(contentBytes.length);
+                relocatedBuffer.put(contentBytes);
+                baos.write(relocatedBuffer.array());
+            }
+
+            ByteBuffer pageCount = ByteBuffer.allocate(4).order(ByteOrder.BIG_ENDIAN);
+            pageCount.putInt(inlinePages.size());
+            baos.write(pageCount.array());
+            for (InlinePage page : inlinePages) {
+                byte[] contentBytes = page.contentId != null ?
+                        page.contentId.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                ByteBuffer pageBuffer = ByteBuffer.allocate(4 + contentBytes.length).order(ByteOrder.BIG_ENDIAN);
+                pageBuffer.putInt(contentBytes.length);
+                pageBuffer.put(contentBytes);
+                baos.write(pageBuffer.array());
+            }
         } catch (Exception e) {
             throw new VfsException("Failed to serialize entries", e);
         }
@@ -367,28 +1141,240 @@ public class VirtualFileSystem {
             long createdAt = buffer.getLong();
             long modifiedAt = buffer.getLong();
 
-            VfsEntry entry = new VfsEntry(id, name, isDir, parentId, size, createdAt, modifiedAt);
-            entries.put(id, entry);
+            VfsEntry entry = add(new VfsEntry(id, name, isDir, parentId, size, createdAt, modifiedAt));
 
             if (ROOT_ID.equals(id)) {
                 root = entry;
             }
         }
+
+        if (buffer.hasRemaining()) {
+            int inlineCount = buffer.getInt();
+            for (int i = 0; i < inlineCount; i++) {
+                byte[] idBytes = new byte[buffer.getInt()];
+                buffer.get(idBytes);
+                byte[] content = new byte[buffer.getInt()];
+                buffer.get(content);
+                VfsEntry entry = entries.get(new String(idBytes, StandardCharsets.UTF_8));
+                if (entry == null || entry.isDirectory() || entry.getSize() != content.length) {
+                    throw new VfsException("Corrupt inline file entry");
+                }
+                replaceInline(entry, content);
+            }
+        }
+
+        if (buffer.hasRemaining()) {
+            int relocatedCount = buffer.getInt();
+            for (int i = 0; i < relocatedCount; i++) {
+                byte[] idBytes = new byte[buffer.getInt()];
+                buffer.get(idBytes);
+                byte[] contentBytes = new byte[buffer.getInt()];
+                buffer.get(contentBytes);
+                VfsEntry entry = entries.get(new String(idBytes, StandardCharsets.UTF_8));
+                if (entry == null || entry.isDirectory()) {
+                    throw new VfsException("Corrupt file content reference");
+                }
+                entry.setContentId(new String(contentBytes, StandardCharsets.UTF_8));
+            }
+        }
+
+        if (buffer.hasRemaining()) {
+            int pageCount = buffer.getInt();
+            for (int i = 0; i < pageCount; i++) {
+                byte[] contentBytes = new byte[buffer.getInt()];
+                buffer.get(contentBytes);
+                inlinePages.add(new InlinePage(contentBytes.length > 0 ?
+                        new String(contentBytes, StandardCharsets.UTF_8) : null));
+            }
+            loadInlinePages();
+        }
     }
 
-    private class VfsOutputStream extends ByteArrayOutputStream {
+    private class VfsOutputStream extends OutputStream {
         private final VfsEntry entry;
+        private final String contentId = UUID.randomUUID().toString();
+        private ByteArrayOutputStream head = new ByteArrayOutputStream();
+        private VaultContainer.ChunkOutputStream target;
+        private boolean closed;
 
         VfsOutputStream(VfsEntry entry) {
             this.entry = entry;
         }
 
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (target == null) {
+                if (head.size() + len <= inlineThreshold) {
+                    head.write(data, off, len);
+                    return;
+                }
+                target = container.openWrite(contentId);
+                head.writeTo(target);
+                head = null;
+            }
+            target.write(data, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writeLock.lock();
+            try {
+                if (entries.get(entry.getId()) == null) {
+                    if (target != null) {
+                        target.abort();
+                    }
+                    return;
+                }
+                VfsEntry current = mutable(entry);
+                if (target == null) {
+                    byte[] content = head.toByteArray();
+                    storeContent(current, content);
+                    Arrays.fill(content, (byte) 0);
+                } else {
+                    target.close();
+                    if (!current.isInline()) {
+                        retireContent(current.getContentId());
+                    }
+                    replaceInline(current, null);
+                    current.setContentId(contentId);
+                    freshContent.add(contentId);
+                    current.setSize(target.getSize());
+                }
+                persistMetadata();
+            } finally {
+                release();
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        private final EntryTrie entries;
+        private final long generation;
+
+        private Snapshot(EntryTrie entries, long generation) {
+            this.entries = entries;
+            this.generation = generation;
+        }
+    }
+
+    private static final class InlinePage {
+        private String contentId;
+        private int used;
+        private boolean dirty;
+
+        private InlinePage(String contentId) {
+            this.contentId = contentId;
+        }
+
+        private boolean fits(int cost) {
+            return used == 0 || used + cost <= INLINE_PAGE_SIZE;
+        }
+
+        private InlinePage copy() {
+            InlinePage copy = new InlinePage(contentId);
+            copy.used = used;
+            copy.dirty = dirty;
+            return copy;
+        }
+    }
+
+    private static final class ReadPin {
+        private final EntryTrie entries;
+        private final long generation;
+
+        private ReadPin(EntryTrie entries, long generation) {
+            this.entries = entries;
+            this.generation = generation;
+        }
+    }
+
+    private static class InlineChannel implements SeekableByteChannel {
+        private final byte[] content;
+        private long position;
+        private boolean open = true;
+
+        InlineChannel(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            ensureOpen();
+            if (position >= content.length) {
+                return -1;
+            }
+            int length = (int) Math.min(dst.remaining(), content.length - position);
+            dst.put(content, (int) position, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            ensureOpen();
+            return position;
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            ensureOpen();
+            if (newPosition < 0) {
+                throw new IllegalArgumentException("Position must not be negative");
+            }
+            this.position = newPosition;
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            ensureOpen();
+            return content.length;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) {
+            throw new NonWritableChannelException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
         @Override
         public void close() {
-            byte[] data = toByteArray();
-            entry.setSize(data.length);
-            container.writeFile(entry.getId(), data);
-            persistMetadata();
+            open = false;
+            Arrays.fill(content, (byte) 0);
+        }
+
+        private void ensureOpen() throws ClosedChannelException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
         }
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkCacheTest {
+
+    @Test
+    void leastRecentlyUsedChunkIsEvictedFirst() {
+        ChunkCache cache = new ChunkCache(300);
+        cache.put(1, new byte[100]);
+        cache.put(2, new byte[100]);
+        cache.put(3, new byte[100]);
+        assertNotNull(cache.get(1));
+
+        cache.put(4, new byte[100]);
+
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+        ChunkCacheStats stats = cache.getStats();
+        assertEquals(300, stats.getCachedBytes());
+        assertEquals(3, stats.getCachedChunks());
+        assertEquals(1, stats.getEvictions());
+        assertEquals(4, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void returnedBuffersAreIndependentCopies() {
+        ChunkCache cache = new ChunkCache(1024);
+        byte[] plain = {1, 2, 3};
+        cache.put(7, plain);
+        plain[0] = 9;
+
+        byte[] first = cache.get(7);
+        first[1] = 9;
+
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get(7));
+    }
+
+    @Test
+    void chunksLargerThanCapacityAreNotCached() {
+        ChunkCache cache = new ChunkCache(64);
+        cache.put(1, new byte[65]);
+        assertNull(cache.get(1));
+
+        cache.setCapacity(0);
+        cache.put(2, new byte[1]);
+        assertNull(cache.get(2));
+        assertEquals(0, cache.getStats().getCachedBytes());
+    }
+
+    @Test
+    void shrinkingCapacityAndInvalidationReleaseBytes() {
+        ChunkCache cache = new ChunkCache(1000);
+        for (long id = 0; id < 10; id++) {
+            cache.put(id, new byte[100]);
+        }
+        cache.invalidate(9);
+        assertEquals(900, cache.getStats().getCachedBytes());
+
+        cache.setCapacity(250);
+        assertEquals(200, cache.getStats().getCachedBytes());
+        assertNotNull(cache.get(8));
+
+        cache.clear();
+        assertEquals(0, cache.getStats().getCachedChunks());
+        assertThrows(IllegalArgumentException.class, () -> cache.setCapacity(-1));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.KeyedHash;
+import com.aegisvault.exception.VaultException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContainerIndexTest {
+
+    @Test
+    void serializeRoundTripPreservesSixtyFourBitOffsetsAndSizes() {
+        ContainerIndex index = new ContainerIndex();
+        long first = index.allocateChunkId();
+        long second = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(first, 6_000_000_000L, 1_048_604, 1_048_576));
+        index.putChunk(new ChunkInfo(second, 9_000_000_000L, 1_048_604, 1_048_576));
+        index.putFile("big", new FileRecord(5_000_000_000L, new long[]{first, second}));
+
+        ContainerIndex restored = ContainerIndex.deserialize(index.serialize());
+
+        FileRecord record = restored.getFile("big");
+        assertEquals(5_000_000_000L, record.getSize());
+        assertArrayEquals(new long[]{first, second}, record.getChunkIds());
+        assertEquals(9_000_000_000L, restored.getChunk(second).getOffset());
+        assertEquals(second + 1, restored.allocateChunkId());
+    }
+
+    @Test
+    void removeFileReleasesChunks() {
+        ContainerIndex index = new ContainerIndex();
+        long chunkId = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(chunkId, 200, 40, 12));
+        index.putFile("file", new FileRecord(12, new long[]{chunkId}));
+
+        index.removeFile("file");
+
+        assertEquals(0, index.getChunkCount());
+        assertNull(index.getFile("file"));
+    }
+
+    @Test
+    void sharedChunkSurvivesUntilLastReferenceIsRemoved() {
+        ContainerIndex index = new ContainerIndex();
+        byte[] digest = new byte[KeyedHash.DIGEST_SIZE];
+        digest[0] = 1;
+        long chunkId = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(chunkId, 200, 40, 12, digest));
+        index.putFile("first", new FileRecord(24, new long[]{chunkId, chunkId}));
+        index.putFile("second", new FileRecord(12, new long[]{chunkId}));
+        assertEquals(3, index.getReferenceCount(chunkId));
+
+        index.removeFile("first");
+        assertEquals(1, index.getReferenceCount(chunkId));
+        assertEquals(chunkId, index.findChunkByDigest(digest).getId());
+
+        index.putFile("second", new FileRecord(0, new long[0]));
+        assertEquals(0, index.getChunkCount());
+        assertNull(index.findChunkByDigest(digest));
+    }
+
+    @Test
+    void serializeRoundTripPreservesDigestsAndReferences() {
+        ContainerIndex index = new ContainerIndex();
+        byte[] digest = new byte[KeyedHash.DIGEST_SIZE];
+        Arrays.fill(digest, (byte) 7);
+        long chunkId = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(chunkId, 200, 40, 12, digest));
+        index.putFile("first", new FileRecord(12, new long[]{chunkId}));
+        index.putFile("second", new FileRecord(12, new long[]{chunkId}));
+
+        ContainerIndex restored = ContainerIndex.deserialize(index.serialize());
+
+        assertEquals(chunkId, restored.findChunkByDigest(digest).getId());
+        assertEquals(2, restored.getReferenceCount(chunkId));
+        restored.relocateChunk(new ChunkInfo(chunkId, 100, 40, 12));
+        assertEquals(100, restored.findChunkByDigest(digest).getOffset());
+    }
+
+    @Test
+    void serializeRoundTripPreservesPackOffsets() {
+        ContainerIndex index = new ContainerIndex();
+        long packId = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(packId, 200, 140, 100));
+        index.putFile("first", new FileRecord(30, new long[]{packId}, 0));
+        index.putFile("second", new FileRecord(70, new long[]{packId}, 30));
+
+        ContainerIndex restored = ContainerIndex.deserialize(index.serialize());
+
+        assertEquals(0, restored.getFile("first").getPackOffset());
+        assertEquals(30, restored.getFile("second").getPackOffset());
+        assertTrue(restored.getFile("second").isPacked());
+        assertEquals(2, restored.getReferenceCount(packId));
+    }
+
+    @Test
+    void packCandidatesTrackPutsAndRemovals() {
+        ContainerIndex index = new ContainerIndex();
+        long small = index.allocateChunkId();
+        long large = index.allocateChunkId();
+        long packId = index.allocateChunkId();
+        index.putChunk(new ChunkInfo(small, 500, 40, 12));
+        index.putChunk(new ChunkInfo(large, 100, 40_028, 40_000));
+        index.putChunk(new ChunkInfo(packId, 200, 140, 100));
+        index.putFile("small", new FileRecord(12, new long[]{small}));
+        index.putFile("large", new FileRecord(40_000, new long[]{large}));
+        index.putFile("first", new FileRecord(30, new long[]{packId}, 0));
+        index.putFile("second", new FileRecord(70, new long[]{packId}, 30));
+
+        assertEquals(Arrays.asList("small"), candidateIds(index));
+
+        index.removeFile("second");
+        assertEquals(Arrays.asList("first", "small"), candidateIds(index));
+        assertEquals(Arrays.asList("first", "small"), candidateIds(ContainerIndex.deserialize(index.serialize())));
+        assertEquals(Arrays.asList("first", "small"), candidateIds(index.copy()));
+
+        index.putFile("small", new FileRecord(0, new long[0]));
+        index.removeFile("first");
+        assertTrue(index.getPackCandidates().isEmpty());
+    }
+
+    private static List<String> candidateIds(ContainerIndex index) {
+        return index.getPackCandidates().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    void deserializeRejectsTruncatedData() {
+        byte[] data = new ContainerIndex().serialize();
+        byte[] truncated = Arrays.copyOf(data, data.length - 2);
+
+        assertThrows(VaultException.class, () -> ContainerIndex.deserialize(truncated));
+    }
+}
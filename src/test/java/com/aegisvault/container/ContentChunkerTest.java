@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.SecureRandomProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentChunkerTest {
+
+    private final long[] gear = ContentChunker.gearTable(SecureRandomProvider.generateKey());
+
+    @Test
+    void chunkSizesStayWithinBounds() {
+        byte[] data = SecureRandomProvider.generateBytes(6 * ContentChunker.MAX_CHUNK_SIZE);
+
+        List<Integer> sizes = chunkSizes(data);
+
+        assertEquals(data.length, sizes.stream().mapToInt(Integer::intValue).sum());
+        for (int i = 0; i < sizes.size() - 1; i++) {
+            assertTrue(sizes.get(i) >= ContentChunker.MIN_CHUNK_SIZE);
+            assertTrue(sizes.get(i) <= ContentChunker.MAX_CHUNK_SIZE);
+        }
+    }
+
+    @Test
+    void boundariesResynchronizeAfterInsertion() {
+        byte[] data = SecureRandomProvider.generateBytes(6 * ContentChunker.MAX_CHUNK_SIZE);
+        byte[] shifted = new byte[data.length + 7];
+        System.arraycopy(data, 0, shifted, 7, data.length);
+
+        List<Integer> original = boundaries(data, 0);
+        List<Integer> moved = boundaries(shifted, 7);
+
+        int shared = 0;
+        for (int boundary : original) {
+            if (moved.contains(boundary)) {
+                shared++;
+            }
+        }
+        assertTrue(shared >= original.size() - 2, "only " + shared + " of " + original.size() + " boundaries shared");
+    }
+
+    @Test
+    void boundariesDependOnKey() {
+        byte[] data = SecureRandomProvider.generateBytes(4 * ContentChunker.MAX_CHUNK_SIZE);
+        List<Integer> first = chunkSizes(data);
+
+        long[] original = gear.clone();
+        System.arraycopy(ContentChunker.gearTable(SecureRandomProvider.generateKey()), 0, gear, 0, gear.length);
+        List<Integer> second = chunkSizes(data);
+        System.arraycopy(original, 0, gear, 0, gear.length);
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void incrementalScanMatchesSinglePass() {
+        byte[] data = SecureRandomProvider.generateBytes(ContentChunker.MAX_CHUNK_SIZE);
+        int whole = new ContentChunker(gear).findBoundary(data, data.length);
+
+        ContentChunker chunker = new ContentChunker(gear);
+        int found = -1;
+        for (int length = 4096; length <= data.length && found < 0; length += 4096) {
+            found = chunker.findBoundary(data, length);
+        }
+        assertEquals(whole, found);
+    }
+
+    private List<Integer> chunkSizes(byte[] data) {
+        List<Integer> sizes = new ArrayList<>();
+        ContentChunker chunker = new ContentChunker(gear);
+        int start = 0;
+        while (start < data.length) {
+            byte[] rest = Arrays.copyOfRange(data, start, Math.min(data.length, start + ContentChunker.MAX_CHUNK_SIZE));
+            int boundary = chunker.findBoundary(rest, rest.length);
+            int size = boundary > 0 ? boundary : rest.length;
+            chunker.reset();
+            sizes.add(size);
+            start += size;
+        }
+        return sizes;
+    }
+
+    private List<Integer> boundaries(byte[] data, int shift) {
+        List<Integer> result = new ArrayList<>();
+        int position = 0;
+        for (int size : chunkSizes(data)) {
+            position += size;
+            result.add(position - shift);
+        }
+        return result;
+    }
+}
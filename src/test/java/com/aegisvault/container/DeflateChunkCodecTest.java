@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.SecureRandomProvider;
+import com.aegisvault.exception.VaultException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflateChunkCodecTest {
+
+    private final DeflateChunkCodec codec = new DeflateChunkCodec();
+
+    @Test
+    void compressRoundTrip() {
+        byte[] text = "the quick brown fox ".repeat(5_000).getBytes(StandardCharsets.UTF_8);
+
+        byte[] compressed = codec.compress(text, 0, text.length);
+
+        assertTrue(compressed.length < text.length / 10);
+        assertArrayEquals(text, codec.decompress(compressed, text.length));
+    }
+
+    @Test
+    void compressHonoursOffsetAndLength() {
+        byte[] data = SecureRandomProvider.generateBytes(1000);
+
+        byte[] compressed = codec.compress(data, 100, 500);
+
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 600), codec.decompress(compressed, 500));
+    }
+
+    @Test
+    void incompressibleInputStillRoundTrips() {
+        byte[] random = SecureRandomProvider.generateBytes(64 * 1024);
+
+        byte[] compressed = codec.compress(random, 0, random.length);
+
+        assertArrayEquals(random, codec.decompress(compressed, random.length));
+    }
+
+    @Test
+    void decompressRejectsWrongLength() {
+        byte[] text = "abc".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = codec.compress(text, 0, text.length);
+
+        assertThrows(VaultException.class, () -> codec.decompress(compressed, text.length - 1));
+        assertThrows(VaultException.class, () -> codec.decompress(compressed, text.length + 1));
+    }
+
+    @Test
+    void decompressRejectsCorruptInput() {
+        assertThrows(VaultException.class, () -> codec.decompress(new byte[]{(byte) 0xFF, 0x12, 0x34}, 10));
+    }
+
+    @Test
+    void rejectsInvalidLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new DeflateChunkCodec(0));
+        assertThrows(IllegalArgumentException.class, () -> new DeflateChunkCodec(10));
+    }
+
+    @Test
+    void samplingDetectsIncompressibleData() {
+        byte[] random = SecureRandomProvider.generateBytes(256 * 1024);
+        byte[] text = "a,b,c\n".repeat(50_000).getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(ChunkCodecs.looksCompressible(codec, random, random.length));
+        assertTrue(ChunkCodecs.looksCompressible(codec, text, text.length));
+    }
+
+    @Test
+    void registryResolvesDeflateAndRejectsUnknownCodecs() {
+        assertEquals("deflate", ChunkCodecs.get(DeflateChunkCodec.ID).getName());
+        assertTrue(ChunkCodecs.isRegistered(ChunkCodecs.NONE));
+        assertFalse(ChunkCodecs.isRegistered((byte) 99));
+        assertThrows(VaultException.class, () -> ChunkCodecs.get((byte) 99));
+        assertThrows(IllegalArgumentException.class, () -> ChunkCodecs.register(new ChunkCodec() {
+            @Override
+            public byte getId() {
+                return DeflateChunkCodec.ID;
+            }
+
+            @Override
+            public String getName() {
+                return "other";
+            }
+
+            @Override
+            public byte[] compress(byte[] data, int offset, int length) {
+                return data;
+            }
+
+            @Override
+            public byte[] decompress(byte[] data, int plainLength) {
+                return data;
+            }
+        }));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DictionaryTrainerTest {
+
+    @Test
+    void trainedDictionaryImprovesSmallFileCompression() {
+        Random random = new Random(42);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            samples.add(config(random));
+        }
+        byte[] dictionary = DictionaryTrainer.train(samples, DictionaryTrainer.MAX_DICTIONARY_SIZE);
+        DeflateChunkCodec codec = new DeflateChunkCodec();
+
+        long plain = 0;
+        long withoutDictionary = 0;
+        long withDictionary = 0;
+        for (int i = 0; i < 50; i++) {
+            byte[] file = config(random);
+            plain += file.length;
+            withoutDictionary += codec.compress(file, 0, file.length).length;
+            byte[] compressed = codec.compress(file, 0, file.length, dictionary);
+            withDictionary += compressed.length;
+            assertArrayEquals(file, codec.decompress(compressed, 0, file.length, dictionary));
+        }
+
+        assertTrue(dictionary.length > 0 && dictionary.length <= DictionaryTrainer.MAX_DICTIONARY_SIZE);
+        assertTrue(withDictionary * 2 < withoutDictionary,
+                withDictionary + " bytes with dictionary, " + withoutDictionary + " without, " + plain + " plain");
+    }
+
+    @Test
+    void dictionaryRespectsRequestedSize() {
+        Random random = new Random(7);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(config(random));
+        }
+
+        assertTrue(DictionaryTrainer.train(samples, 1024).length <= 1024);
+    }
+
+    @Test
+    void samplesWithoutSharedContentYieldEmptyDictionary() {
+        assertEquals(0, DictionaryTrainer.train(List.of(new byte[0], "unique".getBytes(StandardCharsets.UTF_8)),
+                DictionaryTrainer.MAX_DICTIONARY_SIZE).length);
+        assertThrows(IllegalArgumentException.class, () -> DictionaryTrainer.train(List.of(), 0));
+    }
+
+    static byte[] config(Random random) {
+        return ("{\n  \"service\": \"billing-" + random.nextInt(1000) + "\",\n"
+                + "  \"listenAddress\": \"0.0.0.0\",\n"
+                + "  \"port\": " + (8000 + random.nextInt(1000)) + ",\n"
+                + "  \"database\": {\n    \"url\": \"jdbc:postgresql://db-" + random.nextInt(50)
+                + ".internal:5432/app\",\n    \"poolSize\": " + random.nextInt(64) + ",\n"
+                + "    \"connectionTimeoutMillis\": 30000\n  },\n"
+                + "  \"logging\": {\n    \"level\": \"" + (random.nextBoolean() ? "INFO" : "DEBUG") + "\",\n"
+                + "    \"format\": \"json\"\n  },\n"
+                + "  \"featureFlags\": [\"new-checkout\", \"async-invoices\"]\n}\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
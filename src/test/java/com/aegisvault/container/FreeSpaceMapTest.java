@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeSpaceMapTest {
+
+    @Test
+    void allocatePicksSmallestFittingExtent() {
+        FreeSpaceMap map = new FreeSpaceMap();
+        map.add(1000, 500);
+        map.add(5000, 100);
+
+        assertEquals(5000, map.allocate(80));
+        assertEquals(1000, map.allocate(200));
+        assertEquals(1200, map.allocate(300));
+        assertEquals(-1, map.allocate(50));
+        assertEquals(20, map.getFreeBytes());
+    }
+
+    @Test
+    void adjacentExtentsCoalesce() {
+        FreeSpaceMap map = new FreeSpaceMap();
+        map.add(100, 50);
+        map.add(200, 50);
+        map.add(150, 50);
+
+        assertEquals(1, map.getExtentCount());
+        assertEquals(100, map.allocate(150));
+    }
+
+    @Test
+    void reserveCarvesRangeOutOfExtent() {
+        FreeSpaceMap map = new FreeSpaceMap();
+        map.add(0, 1000);
+
+        map.reserve(400, 200);
+
+        assertEquals(2, map.getExtentCount());
+        assertEquals(800, map.getFreeBytes());
+        assertEquals(-1, map.allocate(401));
+    }
+
+    @Test
+    void allocateLowestTakesFirstFitBelowLimit() {
+        FreeSpaceMap map = new FreeSpaceMap();
+        map.add(1000, 50);
+        map.add(2000, 500);
+        map.add(5000, 100);
+
+        assertEquals(2000, map.allocateLowest(80, 4000));
+        assertEquals(-1, map.allocateLowest(100, 2100));
+        assertEquals(1000, map.allocateLowest(50, 4000));
+        assertEquals(520, map.getFreeBytes());
+    }
+
+    @Test
+    void serializationRoundTrip() throws Exception {
+        FreeSpaceMap map = new FreeSpaceMap();
+        map.add(6_000_000_000L, 4096);
+        map.add(124, 60);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            map.writeTo(out);
+        }
+
+        FreeSpaceMap restored = FreeSpaceMap.readFrom(ByteBuffer.wrap(baos.toByteArray()));
+
+        assertEquals(2, restored.getExtentCount());
+        assertEquals(6_000_000_000L, restored.allocate(4096));
+    }
+}
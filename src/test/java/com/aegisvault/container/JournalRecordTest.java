@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.KeyedHash;
+import com.aegisvault.exception.VaultException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalRecordTest {
+
+    @Test
+    void putFileRecordReplaysChunksAndFile() {
+        ChunkInfo chunk = new ChunkInfo(7, 7_000_000_000L, 60, 32);
+        JournalRecord record = JournalRecord.putFile("file", new FileRecord(32, new long[]{7}), new ChunkInfo[]{chunk});
+
+        ContainerIndex index = new ContainerIndex();
+        JournalRecord.deserialize(record.serialize()).applyTo(index);
+
+        assertEquals(32, index.getFile("file").getSize());
+        assertEquals(7_000_000_000L, index.getChunk(7).getOffset());
+        assertEquals(8, index.allocateChunkId());
+    }
+
+    @Test
+    void putFileRecordCarriesChunkDigests() {
+        byte[] digest = new byte[KeyedHash.DIGEST_SIZE];
+        Arrays.fill(digest, (byte) 3);
+        ChunkInfo hashed = new ChunkInfo(1, 200, 40, 12, digest);
+        ChunkInfo legacy = new ChunkInfo(2, 300, 40, 12);
+        JournalRecord record = JournalRecord.putFile("file", new FileRecord(24, new long[]{1, 2}),
+                new ChunkInfo[]{hashed, legacy});
+
+        ContainerIndex index = new ContainerIndex();
+        JournalRecord.deserialize(record.serialize()).applyTo(index);
+
+        assertEquals(1, index.findChunkByDigest(digest).getId());
+        assertNull(index.getChunk(2).getDigest());
+    }
+
+    @Test
+    void putFileRecordCarriesPackOffset() {
+        ChunkInfo pack = new ChunkInfo(4, 500, 140, 100);
+        JournalRecord first = JournalRecord.putFile("first", new FileRecord(40, new long[]{4}, 0),
+                new ChunkInfo[]{pack});
+        JournalRecord second = JournalRecord.putFile("second", new FileRecord(60, new long[]{4}, 40),
+                new ChunkInfo[0]);
+
+        ContainerIndex index = new ContainerIndex();
+        JournalRecord.deserialize(JournalRecord.batch(List.of(first, second)).serialize()).applyTo(index);
+
+        assertEquals(0, index.getFile("first").getPackOffset());
+        assertEquals(40, index.getFile("second").getPackOffset());
+        assertEquals(2, index.getReferenceCount(4));
+
+        JournalRecord plain = JournalRecord.putFile("plain", new FileRecord(1, new long[]{4}), new ChunkInfo[0]);
+        JournalRecord.deserialize(plain.serialize()).applyTo(index);
+        assertFalse(index.getFile("plain").isPacked());
+    }
+
+    @Test
+    void deleteAndMetadataRecordsReplay() {
+        ContainerIndex index = new ContainerIndex();
+        index.putChunk(new ChunkInfo(1, 200, 40, 12));
+        index.putFile("file", new FileRecord(12, new long[]{1}));
+
+        JournalRecord.deserialize(JournalRecord.deleteFile("file").serialize()).applyTo(index);
+        JournalRecord.deserialize(JournalRecord.setMetadata(4096, 120, 3).serialize()).applyTo(index);
+
+        assertNull(index.getFile("file"));
+        assertEquals(0, index.getChunkCount());
+        assertEquals(4096, index.getMetadataOffset());
+        assertEquals(120, index.getMetadataLength());
+        assertEquals(3, index.getMetadataVersion());
+    }
+
+    @Test
+    void relocateRecordMovesChunksAndReservesTargets() {
+        ContainerIndex index = new ContainerIndex();
+        index.putChunk(new ChunkInfo(1, 9000, 40, 12));
+        index.putFile("file", new FileRecord(12, new long[]{1}));
+        index.getFreeSpace().add(200, 100);
+
+        JournalRecord record = JournalRecord.relocate(List.of(new ChunkInfo(1, 200, 40, 12)));
+        JournalRecord.deserialize(record.serialize()).applyTo(index);
+
+        assertEquals(200, index.getChunk(1).getOffset());
+        assertEquals(100 - 40 - VaultFrame.OVERHEAD, index.getFreeSpace().getFreeBytes());
+    }
+
+    @Test
+    void deserializeRejectsTruncatedRecord() {
+        byte[] data = JournalRecord.deleteFile("file").serialize();
+
+        assertThrows(VaultException.class, () -> JournalRecord.deserialize(Arrays.copyOf(data, 3)));
+    }
+}
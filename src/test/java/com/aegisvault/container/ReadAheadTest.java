@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadAheadTest {
+
+    private final List<Long> loads = new ArrayList<>();
+    private final Map<Long, byte[]> loaded = new HashMap<>();
+
+    @Test
+    void sequentialReadsGrowTheWindowAndLoadEachChunkOnce() throws Exception {
+        try (ReadAhead readAhead = new ReadAhead(chunks(10), this::load, Runnable::run, 4)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, readAhead.get(i)[0]);
+            }
+            assertEquals(4, readAhead.getWindow());
+        }
+        loads.sort(null);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L), loads);
+    }
+
+    @Test
+    void randomAccessShrinksTheWindowAndZeroesDiscardedChunks() throws Exception {
+        try (ReadAhead readAhead = new ReadAhead(chunks(20), this::load, Runnable::run, 4)) {
+            readAhead.get(0);
+            readAhead.get(1);
+            readAhead.get(2);
+            assertEquals(4, readAhead.getWindow());
+            assertTrue(loads.contains(6L));
+
+            readAhead.get(15);
+            assertEquals(2, readAhead.getWindow());
+            assertArrayEquals(new byte[8], loaded.get(6L));
+            readAhead.get(3);
+            readAhead.get(12);
+            assertEquals(0, readAhead.getWindow());
+        }
+    }
+
+    @Test
+    void closeZeroesUnconsumedChunks() throws Exception {
+        ReadAhead readAhead = new ReadAhead(chunks(5), this::load, Runnable::run, 4);
+        readAhead.get(0);
+        readAhead.get(1);
+        readAhead.close();
+
+        assertArrayEquals(new byte[8], loaded.get(2L));
+        assertArrayEquals(new byte[8], loaded.get(3L));
+    }
+
+    @Test
+    void failedPrefetchFallsBackToDirectLoad() throws Exception {
+        int[] failures = {1};
+        ReadAhead.ChunkLoader flaky = chunk -> {
+            if (chunk.getId() == 1 && failures[0]-- > 0) {
+                throw new IOException("transient");
+            }
+            return load(chunk);
+        };
+        try (ReadAhead readAhead = new ReadAhead(chunks(3), flaky, Runnable::run, 2)) {
+            readAhead.get(0);
+            assertEquals(1, readAhead.get(1)[0]);
+        }
+    }
+
+    @Test
+    void backgroundPrefetchReturnsSameContent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (ReadAhead readAhead = new ReadAhead(chunks(64), this::loadConcurrently, executor, 8)) {
+            for (int i = 0; i < 64; i++) {
+                byte[] plain = readAhead.get(i);
+                byte[] expected = new byte[8];
+                Arrays.fill(expected, (byte) i);
+                assertArrayEquals(expected, plain);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ChunkInfo[] chunks(int count) {
+        ChunkInfo[] chunks = new ChunkInfo[count];
+        for (int i = 0; i < count; i++) {
+            chunks[i] = new ChunkInfo(i, 1000L * i, 40, 8);
+        }
+        return chunks;
+    }
+
+    private byte[] load(ChunkInfo chunk) {
+        byte[] plain = new byte[8];
+        Arrays.fill(plain, (byte) chunk.getId());
+        loads.add(chunk.getId());
+        loaded.put(chunk.getId(), plain);
+        return plain;
+    }
+
+    private byte[] loadConcurrently(ChunkInfo chunk) {
+        byte[] plain = new byte[8];
+        Arrays.fill(plain, (byte) chunk.getId());
+        return plain;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.container;
+
+import com.aegisvault.crypto.SecureRandomProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VaultCompactorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VaultContainer container;
+
+    @AfterEach
+    void tearDown() {
+        if (container != null) {
+            container.close();
+        }
+    }
+
+    @Test
+    void skipsStepWhileDeadSpaceIsBelowThreshold() {
+        container = openWithDeadSpace();
+        VaultCompactor compactor = new VaultCompactor(container, 1024 * 1024, 1000, 64L * 1024 * 1024);
+
+        assertFalse(compactor.step());
+        assertEquals(0, compactor.getProgress().getSteps());
+    }
+
+    @Test
+    void compactFullyReportsProgress() throws Exception {
+        container = openWithDeadSpace();
+        byte[] kept = container.readFile("kept");
+        long sizeBefore = Files.size(tempDir.resolve("test.avj"));
+        VaultCompactor compactor = new VaultCompactor(container, 64 * 1024, 1000, 0);
+
+        long reclaimed = compactor.compactFully();
+
+        CompactionProgress progress = compactor.getProgress();
+        assertTrue(reclaimed > 0);
+        assertEquals(reclaimed, progress.getReclaimedBytes());
+        assertEquals(sizeBefore - reclaimed, Files.size(tempDir.resolve("test.avj")));
+        assertTrue(progress.getRelocatedBytes() > 0);
+        assertTrue(progress.getSteps() > 1);
+        assertFalse(progress.isRunning());
+        assertNull(progress.getLastError());
+        assertArrayEquals(kept, container.readFile("kept"));
+    }
+
+    @Test
+    void backgroundCompactionRunsWhileVaultStaysOpen() throws Exception {
+        container = openWithDeadSpace();
+        byte[] kept = container.readFile("kept");
+        long sizeBefore = Files.size(tempDir.resolve("test.avj"));
+
+        try (VaultCompactor compactor = new VaultCompactor(container, 64 * 1024, 10, 0)) {
+            compactor.start();
+            assertTrue(compactor.isRunning());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (Files.size(tempDir.resolve("test.avj")) >= sizeBefore && System.currentTimeMillis() < deadline) {
+                assertArrayEquals(kept, container.readFile("kept"));
+                Thread.sleep(10);
+            }
+        }
+
+        assertTrue(Files.size(tempDir.resolve("test.avj")) < sizeBefore);
+        assertArrayEquals(kept, container.readFile("kept"));
+    }
+
+    @Test
+    void rejectsInvalidThrottle() {
+        container = new VaultContainer(tempDir.resolve("test.avj"));
+        assertThrows(IllegalArgumentException.class, () -> new VaultCompactor(container, 0, 1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new VaultCompactor(container, 1024, 0, 0));
+    }
+
+    private VaultContainer openWithDeadSpace() {
+        VaultContainer vault = new VaultContainer(tempDir.resolve("test.avj"));
+        vault.create("password".toCharArray());
+        vault.writeFile("deleted", SecureRandomProvider.generateBytes(300 * 1024));
+        vault.writeFile("kept", SecureRandomProvider.generateBytes(100 * 1024));
+        vault.deleteFile("deleted");
+        vault.close();
+
+        VaultContainer reopened = new VaultContainer(tempDir.resolve("test.avj"));
+        reopened.open("password".toCharArray());
+        return reopened;
+    }
+}
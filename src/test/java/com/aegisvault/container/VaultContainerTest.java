@@ -15,6 +15,10 @@
  */
 package com.aegisvault.container;
 
+import com.aegisvault.crypto.AesGcmCipher;
+import com.aegisvault.crypto.Argon2KeyDeriver;
+import com.aegisvault.crypto.SecureRandomProvider;
+import com.aegisvault.exception.AegisVaultException;
 import com.aegisvault.exception.AuthenticationException;
 import com.aegisvault.exception.VaultException;
 import org.junit.jupiter.api.AfterEach;
@@ -22,9 +26,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,4 +244,1093 @@ class VaultContainerTest {
         assertArrayEquals(content2, container.readFile("file2"));
         assertArrayEquals(content3, container.readFile("file3"));
     }
+
+    @Test
+    void newVaultUsesCurrentFormat() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+
+        assertEquals(VaultHeader.CURRENT_VERSION, container.getFormatVersion());
+    }
+
+    @Test
+    void writeFileAppendsWithoutRewritingExistingData() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("first", new byte[64 * 1024]);
+
+        byte[] before = Files.readAllBytes(vaultPath);
+        container.writeFile("second", "small".getBytes(StandardCharsets.UTF_8));
+        byte[] after = Files.readAllBytes(vaultPath);
+
+        assertTrue(after.length > before.length);
+        assertTrue(after.length - before.length < 1024);
+        assertArrayEquals(
+                Arrays.copyOfRange(before, VaultHeader.HEADER_SIZE, before.length),
+                Arrays.copyOfRange(after, VaultHeader.HEADER_SIZE, before.length));
+    }
+
+    @Test
+    void legacyVaultUpgradedOnOpen() throws Exception {
+        byte[] content = "Legacy content".getBytes(StandardCharsets.UTF_8);
+        writeLegacyVault("password", Map.of("legacy", content));
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        assertEquals(VaultHeader.CURRENT_VERSION, container.getFormatVersion());
+        assertArrayEquals(content, container.readFile("legacy"));
+
+        container.writeFile("fresh", "New".getBytes(StandardCharsets.UTF_8));
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        assertArrayEquals(content, container.readFile("legacy"));
+        assertArrayEquals("New".getBytes(StandardCharsets.UTF_8), container.readFile("fresh"));
+    }
+
+    @Test
+    void openDoesNotReadFileBlobs() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        int blobOffset = (int) Files.size(vaultPath);
+        container.writeFile("a", new byte[4096]);
+        container.writeFile("b", "Bravo".getBytes(StandardCharsets.UTF_8));
+        container.close();
+
+        byte[] raw = Files.readAllBytes(vaultPath);
+        raw[blobOffset + VaultFrame.HEADER_SIZE + 100] ^= 0x5A;
+        Files.write(vaultPath, raw);
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        assertEquals(2, container.getFileCount());
+        assertArrayEquals("Bravo".getBytes(StandardCharsets.UTF_8), container.readFile("b"));
+        assertThrows(VaultException.class, () -> container.readFile("a"));
+    }
+
+    @Test
+    void streamedMultiChunkFileRoundTrip() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 2 + 123);
+        long written = container.writeFile("large", new ByteArrayInputStream(content));
+
+        assertEquals(content.length, written);
+        assertEquals(content.length, container.getFileSize("large"));
+        assertArrayEquals(content, container.readFile("large"));
+
+        container.close();
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, container.readFile("large", out));
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    void emptyFileRoundTrip() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+
+        container.writeFile("empty", new byte[0]);
+
+        assertTrue(container.containsFile("empty"));
+        assertArrayEquals(new byte[0], container.readFile("empty"));
+    }
+
+    @Test
+    void overwriteReplacesContent() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+
+        container.writeFile("file", "First version".getBytes(StandardCharsets.UTF_8));
+        container.writeFile("file", "Second".getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals("Second".getBytes(StandardCharsets.UTF_8), container.readFile("file"));
+        assertEquals(1, container.getFileCount());
+    }
+
+    @Test
+    void readRangeSpansChunkBoundary() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 2 + 10);
+        container.writeFile("file", content);
+
+        byte[] range = container.readRange("file", VaultContainer.CHUNK_SIZE - 5, 20);
+
+        assertArrayEquals(Arrays.copyOfRange(content, VaultContainer.CHUNK_SIZE - 5, VaultContainer.CHUNK_SIZE + 15), range);
+        assertEquals(10, container.readRange("file", VaultContainer.CHUNK_SIZE * 2, 100).length);
+        assertEquals(0, container.readRange("file", content.length + 1, 10).length);
+    }
+
+    @Test
+    void readRangeDecryptsOnlyCoveringChunks() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        int firstChunkOffset = (int) Files.size(vaultPath);
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 2);
+        container.writeFile("file", content);
+        container.close();
+
+        byte[] raw = Files.readAllBytes(vaultPath);
+        raw[firstChunkOffset + VaultFrame.HEADER_SIZE + 64] ^= 0x01;
+        Files.write(vaultPath, raw);
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        byte[] tail = container.readRange("file", VaultContainer.CHUNK_SIZE + 100, 50);
+        assertArrayEquals(Arrays.copyOfRange(content, VaultContainer.CHUNK_SIZE + 100, VaultContainer.CHUNK_SIZE + 150), tail);
+        assertThrows(VaultException.class, () -> container.readRange("file", 0, 10));
+    }
+
+    @Test
+    void openChannelSupportsSeeking() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE + 500);
+        container.writeFile("file", content);
+
+        try (SeekableByteChannel channel = container.openChannel("file")) {
+            assertEquals(content.length, channel.size());
+            channel.position(VaultContainer.CHUNK_SIZE + 100);
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            assertEquals(16, channel.read(buffer));
+            assertArrayEquals(Arrays.copyOfRange(content, VaultContainer.CHUNK_SIZE + 100, VaultContainer.CHUNK_SIZE + 116), buffer.array());
+
+            channel.position(3);
+            buffer.clear();
+            channel.read(buffer);
+            assertArrayEquals(Arrays.copyOfRange(content, 3, 19), buffer.array());
+            assertEquals(19, channel.position());
+        }
+    }
+
+    @Test
+    void writeRangeReencryptsOnlyAffectedChunk() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 3);
+        container.writeFile("file", content);
+        long sizeBefore = Files.size(vaultPath);
+
+        byte[] patch = "patched".getBytes(StandardCharsets.UTF_8);
+        container.writeRange("file", VaultContainer.CHUNK_SIZE + 10, patch);
+
+        assertTrue(Files.size(vaultPath) - sizeBefore < VaultContainer.CHUNK_SIZE + 4096);
+        System.arraycopy(patch, 0, content, VaultContainer.CHUNK_SIZE + 10, patch.length);
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertArrayEquals(content, container.readFile("file"));
+    }
+
+    @Test
+    void writeRangeAcrossChunkBoundaryAndPastEnd() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE + 100);
+        container.writeFile("file", content);
+
+        byte[] patch = SecureRandomProvider.generateBytes(200);
+        container.writeRange("file", VaultContainer.CHUNK_SIZE - 100, patch);
+        container.writeRange("file", content.length + 50, new byte[] {7});
+
+        byte[] expected = Arrays.copyOf(content, content.length + 51);
+        System.arraycopy(patch, 0, expected, VaultContainer.CHUNK_SIZE - 100, patch.length);
+        expected[expected.length - 1] = 7;
+        assertEquals(expected.length, container.getFileSize("file"));
+        assertArrayEquals(expected, container.readFile("file"));
+    }
+
+    @Test
+    void appendAndTruncate() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+
+        container.append("log", "first ".getBytes(StandardCharsets.UTF_8));
+        container.append("log", "second".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals("first second".getBytes(StandardCharsets.UTF_8), container.readFile("log"));
+
+        container.truncate("log", 5);
+        assertArrayEquals("first".getBytes(StandardCharsets.UTF_8), container.readFile("log"));
+
+        container.truncate("log", 100);
+        assertEquals(5, container.getFileSize("log"));
+        assertThrows(IllegalArgumentException.class, () -> container.truncate("log", -1));
+    }
+
+    @Test
+    void truncateAtChunkBoundaryKeepsLeadingChunks() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 2 + 10);
+        container.writeFile("file", content);
+
+        container.truncate("file", VaultContainer.CHUNK_SIZE);
+        assertArrayEquals(Arrays.copyOf(content, VaultContainer.CHUNK_SIZE), container.readFile("file"));
+
+        container.truncate("file", 0);
+        assertEquals(0, container.readFile("file").length);
+    }
+
+    @Test
+    void metadataIsVersionedSeparatelyFromFiles() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("file", "content".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(container.readMetadata());
+        assertEquals(0, container.getMetadataVersion());
+
+        container.writeMetadata("tree-v1".getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, container.writeMetadata("tree-v2".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, container.getFileCount());
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertEquals(2, container.getMetadataVersion());
+        assertArrayEquals("tree-v2".getBytes(StandardCharsets.UTF_8), container.readMetadata());
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), container.readFile("file"));
+    }
+
+    @Test
+    void mutationsAppendJournalWithoutMovingCheckpoint() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        long checkpoint = readIndexOffset(vaultPath);
+
+        container.writeFile("a", "alpha".getBytes(StandardCharsets.UTF_8));
+        container.writeFile("b", "beta".getBytes(StandardCharsets.UTF_8));
+        container.deleteFile("a");
+        container.writeMetadata("tree".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(checkpoint, readIndexOffset(vaultPath));
+
+        Path crashed = tempDir.resolve("crashed.avj");
+        Files.copy(vaultPath, crashed);
+        try (VaultContainer recovered = new VaultContainer(crashed)) {
+            recovered.open("password".toCharArray());
+
+            assertFalse(recovered.containsFile("a"));
+            assertArrayEquals("beta".getBytes(StandardCharsets.UTF_8), recovered.readFile("b"));
+            assertArrayEquals("tree".getBytes(StandardCharsets.UTF_8), recovered.readMetadata());
+        }
+
+        container.close();
+        assertNotEquals(checkpoint, readIndexOffset(vaultPath));
+    }
+
+    @Test
+    void tornJournalTailIsDiscardedOnOpen() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("kept", "kept".getBytes(StandardCharsets.UTF_8));
+        container.writeFile("torn", "torn".getBytes(StandardCharsets.UTF_8));
+
+        Path crashed = tempDir.resolve("crashed.avj");
+        byte[] raw = Files.readAllBytes(vaultPath);
+        Files.write(crashed, Arrays.copyOf(raw, raw.length - 3));
+
+        try (VaultContainer recovered = new VaultContainer(crashed)) {
+            recovered.open("password".toCharArray());
+            assertTrue(recovered.containsFile("kept"));
+            assertFalse(recovered.containsFile("torn"));
+            recovered.writeFile("after", "after".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (VaultContainer reopened = new VaultContainer(crashed)) {
+            reopened.open("password".toCharArray());
+            assertArrayEquals("kept".getBytes(StandardCharsets.UTF_8), reopened.readFile("kept"));
+            assertArrayEquals("after".getBytes(StandardCharsets.UTF_8), reopened.readFile("after"));
+        }
+    }
+
+    @Test
+    void batchBecomesDurableOnlyOnCommit() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("before", "before".getBytes(StandardCharsets.UTF_8));
+
+        container.beginBatch();
+        container.writeFile("one", "one".getBytes(StandardCharsets.UTF_8));
+        container.writeFile("two", "two".getBytes(StandardCharsets.UTF_8));
+        container.deleteFile("before");
+
+        Path midBatch = tempDir.resolve("mid-batch.avj");
+        Files.copy(vaultPath, midBatch);
+        container.commitBatch();
+        Path committed = tempDir.resolve("committed.avj");
+        Files.copy(vaultPath, committed);
+
+        try (VaultContainer recovered = new VaultContainer(midBatch)) {
+            recovered.open("password".toCharArray());
+            assertTrue(recovered.containsFile("before"));
+            assertFalse(recovered.containsFile("one"));
+        }
+        try (VaultContainer recovered = new VaultContainer(committed)) {
+            recovered.open("password".toCharArray());
+            assertFalse(recovered.containsFile("before"));
+            assertArrayEquals("two".getBytes(StandardCharsets.UTF_8), recovered.readFile("two"));
+        }
+    }
+
+    @Test
+    void rollbackBatchRestoresIndex() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("kept", "kept".getBytes(StandardCharsets.UTF_8));
+
+        container.beginBatch();
+        container.writeFile("discarded", "discarded".getBytes(StandardCharsets.UTF_8));
+        container.deleteFile("kept");
+        assertThrows(IllegalStateException.class, () -> container.beginBatch());
+        container.rollbackBatch();
+
+        assertTrue(container.containsFile("kept"));
+        assertFalse(container.containsFile("discarded"));
+        assertFalse(container.isBatchActive());
+        assertThrows(IllegalStateException.class, () -> container.commitBatch());
+    }
+
+    @Test
+    void readersOnOtherThreadsSeeCommittedStateDuringBatch() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("kept", "before".getBytes(StandardCharsets.UTF_8));
+
+        container.beginBatch();
+        container.writeFile("kept", "after".getBytes(StandardCharsets.UTF_8));
+        container.writeFile("added", "added".getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals("after".getBytes(StandardCharsets.UTF_8), container.readFile("kept"));
+        assertTrue(container.containsFile("added"));
+        byte[] seen = CompletableFuture.supplyAsync(() -> container.readFile("kept")).get();
+        boolean added = CompletableFuture.supplyAsync(() -> container.containsFile("added")).get();
+        assertArrayEquals("before".getBytes(StandardCharsets.UTF_8), seen);
+        assertFalse(added);
+
+        container.commitBatch();
+        seen = CompletableFuture.supplyAsync(() -> container.readFile("kept")).get();
+        assertArrayEquals("after".getBytes(StandardCharsets.UTF_8), seen);
+    }
+
+    @Test
+    void openChannelKeepsItsVersionAcrossOverwriteAndCompaction() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setChunkCacheCapacity(0);
+        byte[] original = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE * 2 + 100);
+        byte[] replacement = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE + 7);
+        container.writeFile("file", original);
+
+        try (SeekableByteChannel channel = container.openChannel("file")) {
+            container.writeFile("file", replacement);
+            for (int i = 0; i < 8; i++) {
+                container.writeFile("filler-" + i, SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE));
+                container.deleteFile("filler-" + i);
+            }
+            while (container.compactStep(256 * 1024) > 0) {
+                assertArrayEquals(replacement, container.readFile("file"));
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(original.length);
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read > 0 && buffer.hasRemaining());
+            assertArrayEquals(original, buffer.array());
+        }
+        assertArrayEquals(replacement, container.readFile("file"));
+    }
+
+    @Test
+    void copyFileSharesChunksUntilEitherSideChanges() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(VaultContainer.CHUNK_SIZE + 300);
+        container.writeFile("source", content);
+        long liveBefore = container.getSpaceStats().getLiveBytes();
+
+        container.copyFile("source", "copy");
+        assertTrue(container.getSpaceStats().getLiveBytes() - liveBefore < 1024);
+        container.writeRange("copy", 0, "changed".getBytes(StandardCharsets.UTF_8));
+        container.deleteFile("source");
+        assertThrows(VaultException.class, () -> container.copyFile("missing", "other"));
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        byte[] copy = container.readFile("copy");
+        assertArrayEquals("changed".getBytes(StandardCharsets.UTF_8), Arrays.copyOf(copy, 7));
+        assertArrayEquals(Arrays.copyOfRange(content, 7, content.length), Arrays.copyOfRange(copy, 7, copy.length));
+        assertFalse(container.containsFile("source"));
+    }
+
+    @Test
+    void churnReusesFreedSpaceInsteadOfGrowing() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.close();
+
+        Map<String, byte[]> logs = new LinkedHashMap<>();
+        long sizeAfterWarmup = 0;
+        for (int day = 0; day < 30; day++) {
+            container = new VaultContainer(vaultPath);
+            container.open("password".toCharArray());
+            byte[] log = SecureRandomProvider.generateBytes(64 * 1024);
+            container.writeFile("log-" + day, log);
+            logs.put("log-" + day, log);
+            if (day >= 3) {
+                container.deleteFile("log-" + (day - 3));
+                logs.remove("log-" + (day - 3));
+            }
+            container.close();
+            if (day == 5) {
+                sizeAfterWarmup = Files.size(vaultPath);
+            }
+        }
+
+        assertTrue(Files.size(vaultPath) <= sizeAfterWarmup + 64 * 1024,
+                "vault grew from " + sizeAfterWarmup + " to " + Files.size(vaultPath));
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        for (Map.Entry<String, byte[]> entry : logs.entrySet()) {
+            assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+        }
+    }
+
+    @Test
+    void spaceStatsReportLiveAndDeadBytes() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.writeFile("kept", new byte[10_000]);
+        container.writeFile("deleted", new byte[50_000]);
+        container.deleteFile("deleted");
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        SpaceStats stats = container.getSpaceStats();
+
+        assertEquals(stats.getFileSize(), stats.getLiveBytes() + stats.getDeadBytes());
+        assertTrue(stats.getLiveBytes() >= 10_000 && stats.getLiveBytes() < 50_000);
+        assertTrue(stats.getReusableBytes() >= 50_000);
+        assertTrue(stats.getFreeExtentCount() > 0);
+
+        container.writeFile("reused", new byte[40_000]);
+        assertTrue(container.getSpaceStats().getFileSize() - stats.getFileSize() < 40_000);
+    }
+
+    @Test
+    void compactionShrinksFileAndKeepsFilesReadable() throws Exception {
+        Map<String, byte[]> kept = writeFragmentedVault();
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        long sizeBefore = Files.size(vaultPath);
+
+        long moved = 0;
+        long step;
+        while ((step = container.compactStep(256 * 1024)) > 0) {
+            moved += step;
+            for (Map.Entry<String, byte[]> entry : kept.entrySet()) {
+                assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+            }
+        }
+
+        assertTrue(moved > 0);
+        assertTrue(Files.size(vaultPath) < sizeBefore - 600 * 1024,
+                "vault only shrank from " + sizeBefore + " to " + Files.size(vaultPath));
+        container.writeFile("after", "after".getBytes(StandardCharsets.UTF_8));
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        for (Map.Entry<String, byte[]> entry : kept.entrySet()) {
+            assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+        }
+        assertArrayEquals("after".getBytes(StandardCharsets.UTF_8), container.readFile("after"));
+    }
+
+    @Test
+    void crashDuringCompactionLeavesVaultReadable() throws Exception {
+        Map<String, byte[]> kept = writeFragmentedVault();
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+
+        int step = 0;
+        while (container.compactStep(128 * 1024) > 0) {
+            Path crashed = tempDir.resolve("crashed-" + step++ + ".avj");
+            Files.copy(vaultPath, crashed);
+            try (VaultContainer recovered = new VaultContainer(crashed)) {
+                recovered.open("password".toCharArray());
+                for (Map.Entry<String, byte[]> entry : kept.entrySet()) {
+                    assertArrayEquals(entry.getValue(), recovered.readFile(entry.getKey()));
+                }
+                while (recovered.compactStep(1024 * 1024) > 0) {
+                }
+                assertArrayEquals(kept.get("file-5"), recovered.readFile("file-5"));
+            }
+        }
+        assertTrue(step > 1);
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(3 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("original", content);
+        long sizeAfterFirst = Files.size(vaultPath);
+
+        container.writeFile("copy", content);
+        assertTrue(Files.size(vaultPath) - sizeAfterFirst < 4096);
+
+        container.deleteFile("original");
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertArrayEquals(content, container.readFile("copy"));
+        long sizeAfterReopen = Files.size(vaultPath);
+        container.writeFile("again", content);
+        assertTrue(Files.size(vaultPath) - sizeAfterReopen < 4096);
+        assertArrayEquals(content, container.readFile("again"));
+    }
+
+    @Test
+    void reimportOfEditedFileStoresOnlyChangedChunks() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] original = SecureRandomProvider.generateBytes(8 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("draft-1", original);
+        long sizeAfterFirst = Files.size(vaultPath);
+
+        byte[] inserted = "inserted paragraph".getBytes(StandardCharsets.UTF_8);
+        int insertAt = 3 * VaultContainer.CHUNK_SIZE + 12345;
+        byte[] edited = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, edited, 0, insertAt);
+        System.arraycopy(inserted, 0, edited, insertAt, inserted.length);
+        System.arraycopy(original, insertAt, edited, insertAt + inserted.length, original.length - insertAt);
+        container.writeFile("draft-2", edited);
+
+        assertTrue(Files.size(vaultPath) - sizeAfterFirst < 3L * VaultContainer.CHUNK_SIZE,
+                "edited copy grew the vault by " + (Files.size(vaultPath) - sizeAfterFirst));
+        assertArrayEquals(original, container.readFile("draft-1"));
+        assertArrayEquals(edited, container.readFile("draft-2"));
+    }
+
+    @Test
+    void deduplicatedChunksSurviveJournalReplay() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(2 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("first", content);
+
+        Path crashed = tempDir.resolve("crashed.avj");
+        Files.copy(vaultPath, crashed);
+        try (VaultContainer recovered = new VaultContainer(crashed)) {
+            recovered.open("password".toCharArray());
+            long sizeBefore = Files.size(crashed);
+            recovered.writeFile("second", content);
+            assertTrue(Files.size(crashed) - sizeBefore < 4096);
+            recovered.deleteFile("first");
+            assertArrayEquals(content, recovered.readFile("second"));
+        }
+    }
+
+    @Test
+    void deduplicatedChunkReleasedBeforeCommitSurvivesJournalReplay() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(2 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("first", content);
+
+        VaultContainer.ChunkOutputStream out = container.openWrite("second");
+        out.write(content);
+        out.seal();
+        container.deleteFile("first");
+        out.close();
+        assertArrayEquals(content, container.readFile("second"));
+
+        Path crashed = tempDir.resolve("crashed.avj");
+        Files.copy(vaultPath, crashed);
+        try (VaultContainer recovered = new VaultContainer(crashed)) {
+            recovered.open("password".toCharArray());
+            assertArrayEquals(content, recovered.readFile("second"));
+        }
+    }
+
+    @Test
+    void compressionIsOffByDefault() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        long sizeBefore = Files.size(vaultPath);
+        byte[] text = "id,name,amount\n".repeat(50_000).getBytes(StandardCharsets.UTF_8);
+
+        container.writeFile("data.csv", text);
+
+        assertEquals(ChunkCodecs.NONE, container.getCompressionCodec());
+        assertTrue(Files.size(vaultPath) - sizeBefore > text.length / 2);
+    }
+
+    @Test
+    void compressedChunksReadBackAfterReopen() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setCompressionCodec(DeflateChunkCodec.ID);
+        long sizeBefore = Files.size(vaultPath);
+        byte[] text = "id,name,amount\n".repeat(200_000).getBytes(StandardCharsets.UTF_8);
+
+        container.writeFile("data.csv", text);
+        assertTrue(Files.size(vaultPath) - sizeBefore < text.length / 10);
+        container.writeRange("data.csv", 1_000_000, "patched".getBytes(StandardCharsets.UTF_8));
+        System.arraycopy("patched".getBytes(StandardCharsets.UTF_8), 0, text, 1_000_000, 7);
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertEquals(DeflateChunkCodec.ID, container.getCompressionCodec());
+        assertArrayEquals(text, container.readFile("data.csv"));
+        assertArrayEquals(Arrays.copyOfRange(text, 2_500_000, 2_500_100), container.readRange("data.csv", 2_500_000, 100));
+    }
+
+    @Test
+    void incompressibleChunksAreStoredRaw() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setCompressionCodec(DeflateChunkCodec.ID);
+        long sizeBefore = Files.size(vaultPath);
+        byte[] random = SecureRandomProvider.generateBytes(2 * VaultContainer.CHUNK_SIZE);
+
+        container.writeFile("random.bin", random);
+
+        long growth = Files.size(vaultPath) - sizeBefore;
+        assertTrue(growth > random.length && growth < random.length + 4096);
+        assertArrayEquals(random, container.readFile("random.bin"));
+    }
+
+    @Test
+    void disablingCompressionKeepsExistingChunksReadable() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setCompressionCodec(DeflateChunkCodec.ID);
+        byte[] text = "compressible ".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+        container.writeFile("compressed", text);
+
+        container.setCompressionCodec(ChunkCodecs.NONE);
+        container.writeFile("raw", text);
+
+        assertArrayEquals(text, container.readFile("compressed"));
+        assertArrayEquals(text, container.readFile("raw"));
+        assertThrows(IllegalArgumentException.class, () -> container.setCompressionCodec((byte) 99));
+    }
+
+    @Test
+    void trainedDictionaryShrinksSmallFiles() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setCompressionCodec(DeflateChunkCodec.ID);
+        Random random = new Random(1);
+        for (int i = 0; i < 5; i++) {
+            container.writeFile("early-" + i, DictionaryTrainerTest.config(random));
+        }
+        assertFalse(container.trainDictionary());
+
+        for (int i = 0; i < 200; i++) {
+            container.writeFile("config-" + i, DictionaryTrainerTest.config(random));
+        }
+        long withoutDictionary = growthOfSmallFiles("plain-", random);
+
+        assertTrue(container.trainDictionary());
+        assertEquals(1, container.getDictionaryCount());
+        long withDictionary = growthOfSmallFiles("trained-", random);
+        assertTrue(withDictionary * 3 < withoutDictionary * 2,
+                withDictionary + " bytes with dictionary, " + withoutDictionary + " without");
+
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            byte[] content = DictionaryTrainerTest.config(random);
+            container.writeFile("checked-" + i, content);
+            expected.put("checked-" + i, content);
+        }
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertEquals(1, container.getDictionaryCount());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+        }
+    }
+
+    @Test
+    void packingSmallFilesShrinksVaultAndKeepsThemReadable() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        Map<String, byte[]> expected = writeSmallFiles(40);
+        long liveBefore = container.getSpaceStats().getLiveBytes();
+
+        assertEquals(40, container.packSmallFiles(1024 * 1024));
+        assertEquals(0, container.packSmallFiles(1024 * 1024));
+        assertTrue(container.getSpaceStats().getLiveBytes() < liveBefore);
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        assertEquals(0, container.packSmallFiles(1024 * 1024));
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            byte[] content = entry.getValue();
+            assertArrayEquals(content, container.readFile(entry.getKey()));
+            assertArrayEquals(Arrays.copyOfRange(content, 10, 50), container.readRange(entry.getKey(), 10, 40));
+            try (SeekableByteChannel channel = container.openChannel(entry.getKey())) {
+                assertEquals(content.length, channel.size());
+                ByteBuffer buffer = ByteBuffer.allocate(content.length + 16);
+                channel.position(5);
+                assertEquals(content.length - 5, channel.read(buffer));
+                assertArrayEquals(Arrays.copyOfRange(content, 5, content.length),
+                        Arrays.copyOf(buffer.array(), content.length - 5));
+            }
+        }
+    }
+
+    @Test
+    void writesToPackedFilesLeaveNeighboursIntact() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        Map<String, byte[]> expected = writeSmallFiles(10);
+        assertEquals(10, container.packSmallFiles(1024 * 1024));
+
+        container.writeRange("small-3", 2, "patched".getBytes(StandardCharsets.UTF_8));
+        byte[] patched = expected.get("small-3");
+        System.arraycopy("patched".getBytes(StandardCharsets.UTF_8), 0, patched, 2, 7);
+        container.truncate("small-4", 100);
+        expected.put("small-4", Arrays.copyOf(expected.get("small-4"), 100));
+        container.append("small-5", new byte[]{1, 2, 3});
+        byte[] appended = Arrays.copyOf(expected.get("small-5"), expected.get("small-5").length + 3);
+        appended[appended.length - 3] = 1;
+        appended[appended.length - 2] = 2;
+        appended[appended.length - 1] = 3;
+        expected.put("small-5", appended);
+        container.close();
+
+        container = new VaultContainer(vaultPath);
+        container.open("password".toCharArray());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+        }
+    }
+
+    @Test
+    void sparsePacksAreRepacked() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        Map<String, byte[]> expected = writeSmallFiles(30);
+        assertEquals(30, container.packSmallFiles(1024 * 1024));
+
+        for (int i = 10; i < 30; i++) {
+            container.deleteFile("small-" + i);
+            expected.remove("small-" + i);
+        }
+        assertEquals(10, container.packSmallFiles(1024 * 1024));
+        for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+            assertArrayEquals(entry.getValue(), container.readFile(entry.getKey()));
+        }
+    }
+
+    @Test
+    void packingSurvivesJournalReplay() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        Map<String, byte[]> expected = writeSmallFiles(20);
+        assertEquals(20, container.packSmallFiles(1024 * 1024));
+
+        Path crashed = tempDir.resolve("crashed.avj");
+        Files.copy(vaultPath, crashed);
+        try (VaultContainer recovered = new VaultContainer(crashed)) {
+            recovered.open("password".toCharArray());
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                assertArrayEquals(entry.getValue(), recovered.readFile(entry.getKey()));
+            }
+            recovered.deleteFile("small-0");
+            recovered.writeFile("after-replay", new byte[]{42});
+            assertArrayEquals(expected.get("small-1"), recovered.readFile("small-1"));
+        }
+    }
+
+    @Test
+    void repeatedReadsAreServedFromChunkCache() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(2 * VaultContainer.CHUNK_SIZE + 100);
+        container.writeFile("cached", content);
+
+        assertArrayEquals(content, container.readFile("cached"));
+        long misses = container.getChunkCacheStats().getMisses();
+        assertArrayEquals(content, container.readFile("cached"));
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), container.readRange("cached", 10, 10));
+
+        ChunkCacheStats stats = container.getChunkCacheStats();
+        assertEquals(misses, stats.getMisses());
+        assertTrue(stats.getHits() >= 3);
+        assertEquals(content.length, stats.getCachedBytes());
+
+        container.deleteFile("cached");
+        assertEquals(0, container.getChunkCacheStats().getCachedBytes());
+    }
+
+    @Test
+    void chunkCacheIsWipedOnCloseAndRespectsCapacity() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setChunkCacheCapacity(VaultContainer.CHUNK_SIZE);
+        byte[] content = SecureRandomProvider.generateBytes(3 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("large", content);
+
+        assertArrayEquals(content, container.readFile("large"));
+        assertTrue(container.getChunkCacheStats().getCachedBytes() <= VaultContainer.CHUNK_SIZE);
+        assertTrue(container.getChunkCacheStats().getEvictions() > 0);
+
+        container.close();
+        assertEquals(0, container.getChunkCacheStats().getCachedBytes());
+    }
+
+    @Test
+    void rolledBackChunksAreNotServedFromCache() {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.beginBatch();
+        container.writeFile("discarded", "discarded".getBytes(StandardCharsets.UTF_8));
+        container.readFile("discarded");
+        container.rollbackBatch();
+
+        container.writeFile("kept", "kept".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals("kept".getBytes(StandardCharsets.UTF_8), container.readFile("kept"));
+    }
+
+    @Test
+    void streamingReadsMatchWithAndWithoutReadAhead() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        container.setChunkCacheCapacity(0);
+        byte[] content = SecureRandomProvider.generateBytes(6 * VaultContainer.CHUNK_SIZE + 321);
+        container.writeFile("stream", content);
+
+        for (int window : new int[]{0, 1, 8}) {
+            container.setReadAheadChunks(window);
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            assertEquals(content.length, container.readFile("stream", exported));
+            assertArrayEquals(content, exported.toByteArray());
+            try (InputStream in = container.openRead("stream")) {
+                assertArrayEquals(content, in.readAllBytes());
+            }
+            int span = 3 * VaultContainer.CHUNK_SIZE;
+            assertArrayEquals(Arrays.copyOfRange(content, 100, 100 + span), container.readRange("stream", 100, span));
+        }
+    }
+
+    @Test
+    void closingVaultDuringStreamingReadFailsCleanly() throws Exception {
+        container = new VaultContainer(vaultPath);
+        container.create("password".toCharArray());
+        byte[] content = SecureRandomProvider.generateBytes(4 * VaultContainer.CHUNK_SIZE);
+        container.writeFile("stream", content);
+
+        SeekableByteChannel channel = container.openChannel("stream");
+        channel.read(ByteBuffer.allocate(VaultContainer.CHUNK_SIZE + 1));
+        container.close();
+
+        assertThrows(IOException.class, () -> channel.read(ByteBuffer.allocate(2 * VaultContainer.CHUNK_SIZE)));
+        channel.close();
+    }
+
+    @Test
+    void parallelEncryptionWritesChunksInOrder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            container = new VaultContainer(vaultPath);
+            container.create("password".toCharArray());
+            container.setCryptoPool(pool);
+            container.setCompressionCodec(DeflateChunkCodec.ID);
+            byte[] random = SecureRandomProvider.generateBytes(6 * VaultContainer.CHUNK_SIZE + 17);
+            byte[] text = "parallel line\n".repeat(400_000).getBytes(StandardCharsets.UTF_8);
+            container.writeFile("random", random);
+            container.writeFile("text", text);
+            long sizeAfterWrites = Files.size(vaultPath);
+
+            container.writeFile("random-copy", random);
+            assertTrue(Files.size(vaultPath) - sizeAfterWrites < 4096);
+            container.close();
+
+            container = new VaultContainer(vaultPath);
+            container.open("password".toCharArray());
+            assertArrayEquals(random, container.readFile("random"));
+            assertArrayEquals(random, container.readFile("random-copy"));
+            assertArrayEquals(text, container.readFile("text"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelEncryptionStoresRepeatedChunksOnce() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            container = new VaultContainer(vaultPath);
+            container.create("password".toCharArray());
+            container.setCryptoPool(pool);
+            byte[] repeated = new byte[8 * VaultContainer.CHUNK_SIZE];
+            long sizeBefore = Files.size(vaultPath);
+            container.writeFile("repeated", repeated);
+
+            assertTrue(Files.size(vaultPath) - sizeBefore < 2L * VaultContainer.CHUNK_SIZE);
+            assertArrayEquals(repeated, container.readFile("repeated"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void abortedParallelWriteLeavesNoFile() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            container = new VaultContainer(vaultPath);
+            container.create("password".toCharArray());
+            container.setCryptoPool(pool);
+            VaultContainer.ChunkOutputStream out = container.openWrite("aborted");
+            out.write(SecureRandomProvider.generateBytes(5 * VaultContainer.CHUNK_SIZE));
+            out.abort();
+
+            assertFalse(container.containsFile("aborted"));
+            container.writeFile("after", new byte[]{1, 2, 3});
+            assertArrayEquals(new byte[]{1, 2, 3}, container.readFile("after"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelExportReassemblesChunksInOrder() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            container = new VaultContainer(vaultPath);
+            container.create("password".toCharArray());
+            container.setCryptoPool(pool);
+            container.setChunkCacheCapacity(0);
+            byte[] content = SecureRandomProvider.generateBytes(12 * VaultContainer.CHUNK_SIZE + 5);
+            container.writeFile("large", content);
+
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            assertEquals(content.length, container.readFile("large", exported));
+            assertArrayEquals(content, exported.toByteArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void parallelExportDetectsTamperedChunk() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            container = new VaultContainer(vaultPath);
+            container.create("password".toCharArray());
+            container.writeFile("large", SecureRandomProvider.generateBytes(6 * VaultContainer.CHUNK_SIZE));
+            container.close();
+
+            try (RandomAccessFile file = new RandomAccessFile(vaultPath.toFile(), "rw")) {
+                long position = 3L * VaultContainer.CHUNK_SIZE + 1234;
+                file.seek(position);
+                int original = file.read();
+                file.seek(position);
+                file.write(original ^ 0x40);
+            }
+
+            container = new VaultContainer(vaultPath);
+            container.open("password".toCharArray());
+            container.setCryptoPool(pool);
+            assertThrows(AegisVaultException.class,
+                    () -> container.readFile("large", OutputStream.nullOutputStream()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Map<String, byte[]> writeSmallFiles(int count) {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] content = SecureRandomProvider.generateBytes(200 + i * 97);
+            container.writeFile("small-" + i, content);
+            files.put("small-" + i, content);
+        }
+        return files;
+    }
+
+    private long growthOfSmallFiles(String prefix, Random random) throws Exception {
+        long before = Files.size(vaultPath);
+        for (int i = 0; i < 100; i++) {
+            container.writeFile(prefix + i, DictionaryTrainerTest.config(random));
+        }
+        return Files.size(vaultPath) - before;
+    }
+
+    private Map<String, byte[]> writeFragmentedVault() {
+        Map<String, byte[]> kept = new LinkedHashMap<>();
+        try (VaultContainer writer = new VaultContainer(vaultPath)) {
+            writer.create("password".toCharArray());
+            for (int i = 0; i < 6; i++) {
+                byte[] content = SecureRandomProvider.generateBytes(200 * 1024);
+                writer.writeFile("file-" + i, content);
+                kept.put("file-" + i, content);
+            }
+            for (int i = 0; i < 4; i++) {
+                writer.deleteFile("file-" + i);
+                kept.remove("file-" + i);
+            }
+        }
+        return kept;
+    }
+
+    private static long readIndexOffset(Path path) throws Exception {
+        byte[] header = Arrays.copyOf(Files.readAllBytes(path), VaultHeader.HEADER_SIZE);
+        return VaultHeader.parse(header).getIndexOffset();
+    }
+
+    private void writeLegacyVault(String password, Map<String, byte[]> files) throws Exception {
+        byte[] salt = SecureRandomProvider.generateSalt();
+        byte[] headerBytes = new VaultHeader(salt, SecureRandomProvider.generateIv()).toBytes();
+        headerBytes[8] = 0;
+        headerBytes[9] = (byte) VaultHeader.LEGACY_VERSION;
+
+        byte[] masterKey = Argon2KeyDeriver.deriveKey(password.toCharArray(), salt);
+        byte[] vaultKey = SecureRandomProvider.generateKey();
+
+        ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+        metadata.write(ByteBuffer.allocate(4).putInt(files.size()).array());
+        for (Map.Entry<String, byte[]> entry : new LinkedHashMap<>(files).entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] value = AesGcmCipher.encrypt(entry.getValue(), vaultKey);
+            metadata.write(ByteBuffer.allocate(4).putInt(key.length).array());
+            metadata.write(key);
+            metadata.write(ByteBuffer.allocate(4).putInt(value.length).array());
+            metadata.write(value);
+        }
+        byte[] encryptedMetadata = AesGcmCipher.encrypt(metadata.toByteArray(), vaultKey);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(headerBytes);
+        file.write(AesGcmCipher.encrypt(vaultKey, masterKey));
+        file.write(ByteBuffer.allocate(4).putInt(encryptedMetadata.length).array());
+        file.write(encryptedMetadata);
+        Files.write(vaultPath, file.toByteArray());
+    }
 }
@@ -149,4 +149,43 @@ class VaultHeaderTest {
 
         assertFalse(Arrays.equals(retrieved, header.getHeaderIv()));
     }
+
+    @Test
+    void indexOffsetRoundTrip() {
+        VaultHeader original = new VaultHeader(SecureRandomProvider.generateSalt(), SecureRandomProvider.generateIv());
+        original.setIndexOffset(5_000_000_000L);
+
+        VaultHeader parsed = VaultHeader.parse(original.toBytes());
+
+        assertEquals(5_000_000_000L, parsed.getIndexOffset());
+        assertFalse(parsed.isLegacy());
+    }
+
+    @Test
+    void parseAcceptsLegacyVersion() {
+        byte[] bytes = new VaultHeader(SecureRandomProvider.generateSalt(), SecureRandomProvider.generateIv()).toBytes();
+        bytes[8] = 0;
+        bytes[9] = (byte) VaultHeader.LEGACY_VERSION;
+
+        VaultHeader parsed = VaultHeader.parse(bytes);
+
+        assertTrue(parsed.isLegacy());
+        assertEquals(0, parsed.getIndexOffset());
+    }
+
+    @Test
+    void parseRejectsUnknownVersion() {
+        byte[] bytes = new VaultHeader(SecureRandomProvider.generateSalt(), SecureRandomProvider.generateIv()).toBytes();
+        bytes[8] = 0;
+        bytes[9] = (byte) (VaultHeader.CURRENT_VERSION + 1);
+
+        assertThrows(VaultException.class, () -> VaultHeader.parse(bytes));
+    }
+
+    @Test
+    void setIndexOffsetRejectsNegative() {
+        VaultHeader header = new VaultHeader(SecureRandomProvider.generateSalt(), SecureRandomProvider.generateIv());
+
+        assertThrows(IllegalArgumentException.class, () -> header.setIndexOffset(-1));
+    }
 }
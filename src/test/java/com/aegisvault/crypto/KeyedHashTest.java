@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedHashTest {
+
+    @Test
+    void sameKeyAndDataProduceSameDigest() {
+        byte[] key = SecureRandomProvider.generateKey();
+        byte[] data = "chunk contents".getBytes(StandardCharsets.UTF_8);
+
+        byte[] digest = KeyedHash.hash(key, data);
+
+        assertEquals(KeyedHash.DIGEST_SIZE, digest.length);
+        assertArrayEquals(digest, KeyedHash.hash(key, data));
+    }
+
+    @Test
+    void differentKeysProduceDifferentDigests() {
+        byte[] data = "chunk contents".getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(Arrays.equals(
+                KeyedHash.hash(SecureRandomProvider.generateKey(), data),
+                KeyedHash.hash(SecureRandomProvider.generateKey(), data)));
+    }
+
+    @Test
+    void hashOfRangeMatchesHashOfCopy() {
+        byte[] key = SecureRandomProvider.generateKey();
+        byte[] data = SecureRandomProvider.generateBytes(100);
+
+        assertArrayEquals(KeyedHash.hash(key, Arrays.copyOfRange(data, 10, 60)), KeyedHash.hash(key, data, 10, 50));
+    }
+
+    @Test
+    void derivedKeysAreSeparatedByLabel() {
+        byte[] key = SecureRandomProvider.generateKey();
+
+        byte[] first = KeyedHash.deriveKey(key, "first");
+        byte[] second = KeyedHash.deriveKey(key, "second");
+
+        assertEquals(SecureRandomProvider.KEY_SIZE_BYTES, first.length);
+        assertFalse(Arrays.equals(first, second));
+        assertArrayEquals(first, KeyedHash.deriveKey(key, "first"));
+    }
+
+    @Test
+    void rejectsInvalidKey() {
+        assertThrows(IllegalArgumentException.class, () -> KeyedHash.hash(new byte[16], new byte[1]));
+        assertThrows(IllegalArgumentException.class, () -> KeyedHash.hash(null, new byte[1]));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DirectoryScannerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scanListsParentsBeforeChildrenAndTotalsBytes() throws Exception {
+        Path root = tempDir.resolve("root");
+        long expectedBytes = writeTree(root);
+
+        DirectoryScan scan = new DirectoryScanner(4).scan(root);
+
+        assertEquals(root, scan.getRoot());
+        assertEquals(24, scan.getFileCount());
+        assertEquals(1 + 4 + 8, scan.getDirectoryCount());
+        assertEquals(expectedBytes, scan.getTotalBytes());
+        assertEquals("", scan.getEntries().get(0).getRelativePath());
+
+        Set<String> seenDirectories = new HashSet<>();
+        for (ScannedEntry entry : scan.getEntries()) {
+            String relative = entry.getRelativePath();
+            int slash = relative.lastIndexOf('/');
+            String parent = slash < 0 ? "" : relative.substring(0, slash);
+            if (!relative.isEmpty()) {
+                assertTrue(seenDirectories.contains(parent), relative);
+            }
+            if (entry.isDirectory()) {
+                seenDirectories.add(relative);
+            } else {
+                assertEquals(Files.size(entry.getPath()), entry.getSize());
+            }
+            assertNull(entry.getError());
+        }
+    }
+
+    @Test
+    void parallelScanMatchesSingleThreadedScan() throws Exception {
+        Path root = tempDir.resolve("root");
+        writeTree(root);
+
+        List<ScannedEntry> sequential = new DirectoryScanner(1).scan(root).getEntries();
+        List<ScannedEntry> parallel = new DirectoryScanner(8).scan(root).getEntries();
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getRelativePath(), parallel.get(i).getRelativePath());
+            assertEquals(sequential.get(i).getSize(), parallel.get(i).getSize());
+        }
+    }
+
+    @Test
+    void brokenLinksHaveUnknownSize() throws Exception {
+        Path root = tempDir.resolve("links");
+        Files.createDirectories(root);
+        Files.write(root.resolve("real.bin"), new byte[100]);
+        Files.createSymbolicLink(root.resolve("alias.bin"), root.resolve("real.bin"));
+        Files.createSymbolicLink(root.resolve("dangling.bin"), root.resolve("missing.bin"));
+
+        DirectoryScan scan = new DirectoryScanner().scan(root);
+
+        assertEquals(3, scan.getFileCount());
+        assertEquals(200, scan.getTotalBytes());
+        ScannedEntry dangling = scan.getEntries().stream()
+                .filter(entry -> entry.getRelativePath().equals("dangling.bin"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(-1, dangling.getSize());
+    }
+
+    @Test
+    void scanRejectsRegularFile() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("file.txt"), "x");
+
+        assertThrows(IllegalArgumentException.class, () -> new DirectoryScanner().scan(file));
+    }
+
+    private static long writeTree(Path root) throws Exception {
+        long bytes = 0;
+        for (int i = 0; i < 24; i++) {
+            Path dir = root.resolve("a" + (i % 4)).resolve("b" + (i % 8));
+            Files.createDirectories(dir);
+            byte[] content = new byte[i * 97];
+            Files.write(dir.resolve("f" + i + ".bin"), content);
+            bytes += content.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.pipeline;
+
+import com.aegisvault.exception.VfsException;
+import com.aegisvault.service.VaultService;
+import com.aegisvault.vfs.VfsEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPipelineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private VaultService service;
+    private Path vaultPath;
+
+    @BeforeEach
+    void setUp() {
+        vaultPath = tempDir.resolve("test.avj");
+        service = new VaultService();
+        service.createVault(vaultPath, "password".toCharArray());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    void importsTreeWithBoundedQueuesAndBuffer() throws Exception {
+        Path source = tempDir.resolve("tree");
+        List<byte[]> contents = writeTree(source, 30);
+        ImportPipeline pipeline = new ImportPipeline(service, 4, 2, 64 * 1024);
+
+        int count = pipeline.importDirectory(source, "/tree", null);
+
+        assertEquals(1 + 3 + contents.size(), count);
+        for (int i = 0; i < contents.size(); i++) {
+            assertArrayEquals(contents.get(i), service.readFile("/tree/dir" + (i % 3) + "/file" + i + ".bin"));
+        }
+
+        service.close();
+        service.openVault(vaultPath, "password".toCharArray());
+        assertArrayEquals(contents.get(7), service.readFile("/tree/dir1/file7.bin"));
+    }
+
+    @Test
+    void failedFilesAreReportedAndSkipped() throws Exception {
+        Path source = tempDir.resolve("mixed");
+        Files.createDirectories(source);
+        Files.writeString(source.resolve("good.txt"), "good");
+        Files.writeString(source.resolve("bad\\name.txt"), "bad");
+        List<String> imported = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+
+        int count = new ImportPipeline(service, 2, 4, 1024).importDirectory(source, "/mixed", new ImportListener() {
+            @Override
+            public void onFileImported(Path file, String target, long size) {
+                imported.add(target);
+            }
+
+            @Override
+            public void onFileFailed(Path file, String target, Exception error) {
+                failed.add(target);
+            }
+        });
+
+        assertEquals(2, count);
+        assertEquals(List.of("/mixed/good.txt"), imported);
+        assertEquals(List.of("/mixed/bad/name.txt"), failed);
+        assertEquals("good", new String(service.readFile("/mixed/good.txt")));
+    }
+
+    @Test
+    void failureAbortsImportByDefault() throws Exception {
+        Path source = tempDir.resolve("broken");
+        writeTree(source, 12);
+        Files.write(source.resolve("dir0").resolve("bad\\name.bin"), new byte[4096]);
+
+        assertThrows(VfsException.class,
+                () -> new ImportPipeline(service, 3, 2, 8192).importDirectory(source, "/broken", null));
+
+        service.createFile("/after.txt", "still writable".getBytes());
+        service.close();
+        service.openVault(vaultPath, "password".toCharArray());
+        assertEquals("still writable", new String(service.readFile("/after.txt")));
+    }
+
+    @Test
+    void cancellationStopsBeforeRemainingFiles() throws Exception {
+        Path source = tempDir.resolve("cancel");
+        List<byte[]> contents = writeTree(source, 40);
+        int[] imported = {0};
+
+        int count = new ImportPipeline(service, 2, 2, 4096).importDirectory(source, "/cancel", new ImportListener() {
+            @Override
+            public void onFileImported(Path file, String target, long size) {
+                imported[0]++;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return imported[0] >= 5;
+            }
+        });
+
+        assertEquals(5, imported[0]);
+        assertTrue(count < 1 + 3 + contents.size());
+        assertEquals(5, countFiles("/cancel"));
+    }
+
+    private int countFiles(String path) {
+        int files = 0;
+        for (VfsEntry entry : service.listDirectory(path)) {
+            String child = path + "/" + entry.getName();
+            files += entry.isDirectory() ? countFiles(child) : 1;
+        }
+        return files;
+    }
+
+    private static List<byte[]> writeTree(Path root, int files) throws Exception {
+        Random random = new Random(42);
+        List<byte[]> contents = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            Path dir = root.resolve("dir" + (i % 3));
+            Files.createDirectories(dir);
+            int size = i % 5 == 0 ? 200 * 1024 + i : i % 2 == 0 ? 100 + i : 9000 + i * 37;
+            byte[] content = new byte[size];
+            random.nextBytes(content);
+            Files.write(dir.resolve("file" + i + ".bin"), content);
+            contents.add(content);
+        }
+        return contents;
+    }
+}
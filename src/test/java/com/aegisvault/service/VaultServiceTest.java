@@ -22,7 +22,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -125,6 +128,108 @@ class VaultServiceTest {
         assertArrayEquals(content, service.readFile("/documents/report.txt"));
     }
 
+    @Test
+    void createFileFromChannelStoresContent() {
+        service.createVault(vaultPath, "password".toCharArray());
+        byte[] content = "Channel content".getBytes(StandardCharsets.UTF_8);
+
+        VfsEntry entry = service.createFile("/channel.txt", Channels.newChannel(new ByteArrayInputStream(content)));
+
+        assertEquals(content.length, entry.getSize());
+        assertArrayEquals(content, service.readFile("/channel.txt"));
+    }
+
+    @Test
+    void batchCommitPersistsAllChanges() {
+        service.createVault(vaultPath, "password".toCharArray());
+
+        try (VaultService.Batch batch = service.beginBatch()) {
+            service.createDirectory("/bulk");
+            for (int i = 0; i < 50; i++) {
+                service.createFile("/bulk/file" + i + ".txt", ("content " + i).getBytes(StandardCharsets.UTF_8));
+            }
+            batch.commit();
+        }
+        service.close();
+
+        service.openVault(vaultPath, "password".toCharArray());
+        assertEquals(50, service.listDirectory("/bulk").size());
+        assertArrayEquals("content 7".getBytes(StandardCharsets.UTF_8), service.readFile("/bulk/file7.txt"));
+    }
+
+    @Test
+    void batchClosedWithoutCommitRollsBack() {
+        service.createVault(vaultPath, "password".toCharArray());
+        service.createFile("/existing.txt", "data".getBytes(StandardCharsets.UTF_8));
+
+        VaultService.Batch batch = service.beginBatch();
+        try {
+            service.createDirectory("/pending");
+            service.createFile("/pending/file.txt", "pending".getBytes(StandardCharsets.UTF_8));
+            service.delete("/existing.txt");
+        } finally {
+            batch.close();
+        }
+
+        assertFalse(service.isBatchActive());
+        assertThrows(IllegalStateException.class, batch::commit);
+        assertFalse(service.exists("/pending"));
+        assertArrayEquals("data".getBytes(StandardCharsets.UTF_8), service.readFile("/existing.txt"));
+    }
+
+    @Test
+    void compactNowReclaimsDeletedSpace() throws Exception {
+        service.createVault(vaultPath, "password".toCharArray());
+        service.createFile("/large.bin", new byte[600 * 1024]);
+        service.createFile("/small.txt", "small".getBytes(StandardCharsets.UTF_8));
+        service.delete("/large.bin");
+        long sizeBefore = Files.size(vaultPath);
+
+        long reclaimed = service.compactNow();
+
+        assertTrue(reclaimed > 0);
+        assertTrue(Files.size(vaultPath) < sizeBefore);
+        assertTrue(service.getCompactionProgress().isRunning());
+        assertArrayEquals("small".getBytes(StandardCharsets.UTF_8), service.readFile("/small.txt"));
+        service.close();
+
+        service.openVault(vaultPath, "password".toCharArray());
+        assertArrayEquals("small".getBytes(StandardCharsets.UTF_8), service.readFile("/small.txt"));
+        assertFalse(service.exists("/large.bin"));
+    }
+
+    @Test
+    void compressionIsOptInAndPersists() {
+        service.createVault(vaultPath, "password".toCharArray());
+        assertFalse(service.isCompressionEnabled());
+
+        service.setCompressionEnabled(true);
+        byte[] text = "log line\n".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+        service.createFile("/app.log", text);
+        service.close();
+
+        service.openVault(vaultPath, "password".toCharArray());
+        assertTrue(service.isCompressionEnabled());
+        assertArrayEquals(text, service.readFile("/app.log"));
+        assertTrue(service.getSpaceStats().getLiveBytes() < text.length / 4);
+    }
+
+    @Test
+    void readCacheSizeAppliesToOpenVault() {
+        service.setReadCacheSize(0);
+        service.createVault(vaultPath, "password".toCharArray());
+        byte[] content = new byte[4096];
+        service.createFile("/uncached.bin", content);
+        service.readFile("/uncached.bin");
+        assertEquals(0, service.getReadCacheStats().getCachedBytes());
+
+        service.setReadCacheSize(1024 * 1024);
+        service.readFile("/uncached.bin");
+        service.readFile("/uncached.bin");
+        assertEquals(1, service.getReadCacheStats().getHits());
+        assertThrows(IllegalArgumentException.class, () -> service.setReadCacheSize(-1));
+    }
+
     @Test
     void changePasswordWorks() {
         service.createVault(vaultPath, "oldpassword".toCharArray());
@@ -21,9 +21,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +63,21 @@ class ImportExportUtilTest {
         assertArrayEquals("Hello, World!".getBytes(StandardCharsets.UTF_8), service.readFile("/test.txt"));
     }
 
+    @Test
+    void importLargeFileStreamsIntoVault() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        Path sourceFile = tempDir.resolve("large.bin");
+        Files.write(sourceFile, content);
+
+        ImportExportUtil.importFile(service, sourceFile, "/");
+
+        assertEquals(content.length, service.getEntry("/large.bin").getSize());
+        assertArrayEquals(content, service.readFile("/large.bin"));
+    }
+
     @Test
     void importFileToSubdirectory() throws Exception {
         service.createDirectory("/docs");
@@ -123,6 +140,42 @@ class ImportExportUtilTest {
         assertTrue(Files.exists(targetDir.resolve("exportdir/sub/b.txt")));
     }
 
+    @Test
+    void parallelImportAndExportRoundTripManyFiles() throws Exception {
+        Path sourceDir = tempDir.resolve("bulk");
+        for (int i = 0; i < 120; i++) {
+            Path dir = sourceDir.resolve("d" + (i % 6));
+            Files.createDirectories(dir);
+            byte[] content = new byte[(i % 4 == 0) ? 70_000 + i : 40 + i];
+            Arrays.fill(content, (byte) i);
+            Files.write(dir.resolve("f" + i + ".bin"), content);
+        }
+
+        int imported = ImportExportUtil.importDirectory(service, sourceDir, "/", 8);
+        Path targetDir = tempDir.resolve("bulk_out");
+        Files.createDirectories(targetDir);
+        int exported = ImportExportUtil.exportDirectory(service, "/bulk", targetDir, 4);
+
+        assertEquals(1 + 6 + 120, imported);
+        assertEquals(imported, exported);
+        for (int i = 0; i < 120; i++) {
+            Path relative = Path.of("d" + (i % 6), "f" + i + ".bin");
+            assertArrayEquals(Files.readAllBytes(sourceDir.resolve(relative)),
+                    Files.readAllBytes(targetDir.resolve("bulk").resolve(relative)));
+        }
+    }
+
+    @Test
+    void parallelExportFailureIsRethrown() throws Exception {
+        service.createDirectory("/clash");
+        service.createFile("/clash/a.txt", "A".getBytes(StandardCharsets.UTF_8));
+        service.createFile("/clash/b.txt", "B".getBytes(StandardCharsets.UTF_8));
+        Path targetDir = tempDir.resolve("clash_out");
+        Files.createDirectories(targetDir.resolve("clash/b.txt"));
+
+        assertThrows(IOException.class, () -> ImportExportUtil.exportDirectory(service, "/clash", targetDir, 2));
+    }
+
     @Test
     void importNonExistentFileThrows() {
         Path nonExistent = tempDir.resolve("nonexistent.txt");
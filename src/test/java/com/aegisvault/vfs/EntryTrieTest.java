@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 Aegis Vault
+ * All rights reserved.
+ *
+ * This software, known as "AegisVault-J", including its source code, documentation,
+ * design, and associated materials, is the intellectual property of the author.
+ *
+ * No part of this software may be copied, modified, distributed, or used in
+ * derivative works without explicit written permission from the copyright holder,
+ * except for academic evaluation purposes.
+ *
+ * This software is provided "as is", without warranty of any kind, express or
+ * implied, including but not limited to the warranties of merchantability,
+ * fitness for a particular purpose, and noninfringement.
+ */
+package com.aegisvault.vfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntryTrieTest {
+
+    @Test
+    void putGetAndRemoveLeaveEarlierVersionsUntouched() {
+        EntryTrie empty = EntryTrie.empty();
+        EntryTrie trie = empty;
+        for (int i = 0; i < 2000; i++) {
+            trie = trie.put(entry("id-" + i));
+        }
+        EntryTrie full = trie;
+        for (int i = 0; i < 2000; i += 2) {
+            trie = trie.remove("id-" + i);
+        }
+
+        assertEquals(0, empty.size());
+        assertEquals(2000, full.size());
+        assertEquals(1000, trie.size());
+        assertNotNull(full.get("id-10"));
+        assertNull(trie.get("id-10"));
+        assertNotNull(trie.get("id-11"));
+        assertTrue(trie == trie.remove("id-10"));
+
+        Set<String> ids = new HashSet<>();
+        for (VfsEntry entry : trie.values()) {
+            ids.add(entry.getId());
+        }
+        assertEquals(1000, ids.size());
+        assertTrue(ids.contains("id-1999"));
+    }
+
+    @Test
+    void replacingAnEntryKeepsSize() {
+        VfsEntry first = entry("same");
+        VfsEntry second = entry("same");
+        EntryTrie trie = EntryTrie.empty().put(first).put(second);
+
+        assertEquals(1, trie.size());
+        assertTrue(second == trie.get("same"));
+    }
+
+    @Test
+    void collidingHashesAreKeptApart() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        EntryTrie trie = EntryTrie.empty().put(entry("Aa")).put(entry("BB")).put(entry("AaAa")).put(entry("BBBB"));
+
+        assertEquals(4, trie.size());
+        assertEquals("BB", trie.get("BB").getId());
+        EntryTrie removed = trie.remove("Aa");
+        assertNull(removed.get("Aa"));
+        assertEquals("BB", removed.get("BB").getId());
+        assertEquals(3, removed.values().size());
+        assertEquals(0, removed.remove("BB").remove("AaAa").remove("BBBB").values().size());
+    }
+
+    private static VfsEntry entry(String id) {
+        return new VfsEntry(id, id, false, "root", 0, 0, 0);
+    }
+}
@@ -22,9 +22,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -108,6 +122,113 @@ class VirtualFileSystemTest {
         assertArrayEquals(updated, read);
     }
 
+    @Test
+    void createFileFromStreamSpansChunks() {
+        byte[] content = new byte[VaultContainer.CHUNK_SIZE + 4096];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+
+        VfsEntry file = vfs.createFile("/stream.bin", new ByteArrayInputStream(content));
+
+        assertEquals(content.length, file.getSize());
+        assertArrayEquals(content, vfs.readFile("/stream.bin"));
+    }
+
+    @Test
+    void writeFileFromStreamReplacesContent() {
+        vfs.createFile("/file.txt", "Original".getBytes(StandardCharsets.UTF_8));
+
+        vfs.writeFile("/file.txt", new ByteArrayInputStream("Streamed".getBytes(StandardCharsets.UTF_8)));
+
+        assertArrayEquals("Streamed".getBytes(StandardCharsets.UTF_8), vfs.readFile("/file.txt"));
+        assertEquals(8, vfs.getEntry("/file.txt").getSize());
+    }
+
+    @Test
+    void openWriteStreamsContentOnClose() throws Exception {
+        vfs.createFile("/out.txt", new byte[0]);
+
+        try (OutputStream out = vfs.openWrite("/out.txt")) {
+            out.write("Part one, ".getBytes(StandardCharsets.UTF_8));
+            out.write("part two".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertArrayEquals("Part one, part two".getBytes(StandardCharsets.UTF_8), vfs.readFile("/out.txt"));
+        assertEquals(18, vfs.getEntry("/out.txt").getSize());
+    }
+
+    @Test
+    void openReadStreamsAcrossChunks() throws Exception {
+        byte[] content = new byte[2 * VaultContainer.CHUNK_SIZE + 99];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 7);
+        }
+        vfs.createFile("/big.bin", new ByteArrayInputStream(content));
+
+        try (InputStream in = vfs.openRead("/big.bin")) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void openChannelReadsContent() throws Exception {
+        byte[] content = "Channel data".getBytes(StandardCharsets.UTF_8);
+        vfs.createFile("/channel.txt", content);
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        try (ReadableByteChannel channel = vfs.openChannel("/channel.txt")) {
+            assertEquals(content.length, channel.read(buffer));
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        }
+
+        buffer.flip();
+        byte[] read = new byte[buffer.remaining()];
+        buffer.get(read);
+        assertArrayEquals(content, read);
+    }
+
+    @Test
+    void readRangeReturnsRequestedSlice() {
+        vfs.createFile("/range.txt", "0123456789".getBytes(StandardCharsets.UTF_8));
+        vfs.createFile("/empty.txt", new byte[0]);
+
+        assertArrayEquals("345".getBytes(StandardCharsets.UTF_8), vfs.readRange("/range.txt", 3, 3));
+        assertArrayEquals("89".getBytes(StandardCharsets.UTF_8), vfs.readRange("/range.txt", 8, 10));
+        assertEquals(0, vfs.readRange("/empty.txt", 0, 10).length);
+        assertThrows(IllegalArgumentException.class, () -> vfs.readRange("/range.txt", -1, 3));
+    }
+
+    @Test
+    void transferToWritesFileToHost() throws Exception {
+        byte[] content = "Exported".getBytes(StandardCharsets.UTF_8);
+        vfs.createFile("/export.txt", content);
+        vfs.createFile("/empty.txt", new byte[0]);
+        Path target = tempDir.resolve("exported.txt");
+        Path emptyTarget = tempDir.resolve("empty.txt");
+
+        assertEquals(content.length, vfs.transferTo("/export.txt", target));
+        assertEquals(0, vfs.transferTo("/empty.txt", emptyTarget));
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(0, Files.size(emptyTarget));
+    }
+
+    @Test
+    void positionalWritesUpdateEntrySize() {
+        vfs.createFile("/edit.txt", new byte[0]);
+
+        vfs.append("/edit.txt", "Hello".getBytes(StandardCharsets.UTF_8));
+        vfs.writeRange("/edit.txt", 5, " world".getBytes(StandardCharsets.UTF_8));
+        vfs.writeRange("/edit.txt", 0, "J".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals("Jello world".getBytes(StandardCharsets.UTF_8), vfs.readFile("/edit.txt"));
+        assertEquals(11, vfs.getEntry("/edit.txt").getSize());
+
+        vfs.truncate("/edit.txt", 5);
+        assertArrayEquals("Jello".getBytes(StandardCharsets.UTF_8), vfs.readFile("/edit.txt"));
+        assertEquals(5, vfs.getEntry("/edit.txt").getSize());
+    }
+
     @Test
     void deleteFileRemovesIt() {
         vfs.createFile("/todelete.txt", "data".getBytes(StandardCharsets.UTF_8));
@@ -219,6 +340,348 @@ class VirtualFileSystemTest {
         assertThrows(VfsException.class, () -> vfs.createDirectory("/.."));
     }
 
+    @Test
+    void directoryOperationsDoNotStoreContainerFiles() {
+        vfs.createDirectory("/a");
+        vfs.createDirectory("/b");
+        vfs.move("/a", "/b/a");
+        vfs.delete("/b/a");
+
+        assertEquals(0, container.getFileCount());
+        assertTrue(container.getMetadataVersion() >= 4);
+    }
+
+    @Test
+    void legacyMetadataFileIsMigrated() {
+        vfs.createDirectory("/migrated");
+        byte[] tree = container.readMetadata();
+
+        try (VaultContainer legacy = new VaultContainer(tempDir.resolve("legacy.avj"))) {
+            legacy.create("password".toCharArray());
+            legacy.writeFile("__vfs_metadata__", tree);
+
+            VirtualFileSystem migrated = new VirtualFileSystem(legacy);
+
+            assertTrue(migrated.exists("/migrated"));
+            assertFalse(legacy.containsFile("__vfs_metadata__"));
+            assertArrayEquals(tree, legacy.readMetadata());
+        }
+    }
+
+    @Test
+    void tinyFilesAreStoredInlineInMetadata() throws Exception {
+        byte[] marker = "marker".getBytes(StandardCharsets.UTF_8);
+        vfs.createDirectory("/docs");
+        vfs.createFile("/docs/.marker", marker);
+        vfs.createFile("/docs/streamed", new ByteArrayInputStream(marker));
+        try (OutputStream out = vfs.openWrite("/docs/.marker")) {
+            out.write(marker);
+        }
+        vfs.move("/docs/streamed", "/moved");
+
+        assertEquals(1, container.getFileCount());
+        assertTrue(vfs.getEntry("/docs/.marker").isInline());
+
+        VirtualFileSystem reopened = new VirtualFileSystem(container);
+        assertArrayEquals(marker, reopened.readFile("/docs/.marker"));
+        assertArrayEquals(marker, reopened.readFile("/moved"));
+        assertArrayEquals("ark".getBytes(StandardCharsets.UTF_8), reopened.readRange("/moved", 1, 3));
+        try (InputStream in = reopened.openRead("/moved")) {
+            assertArrayEquals(marker, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void directoryOperationsDoNotRewriteInlineContent() throws Exception {
+        byte[] content = new byte[400];
+        Arrays.fill(content, (byte) 'x');
+        for (int i = 0; i < 200; i++) {
+            vfs.createFile("/note-" + i + ".txt", content);
+        }
+        Path vaultPath = tempDir.resolve("test.avj");
+        long sizeBefore = Files.size(vaultPath);
+
+        vfs.createDirectory("/archive");
+        vfs.move("/note-7.txt", "/archive/note-7.txt");
+
+        assertTrue(Files.size(vaultPath) - sizeBefore < 200L * content.length,
+                "directory operations grew the vault by " + (Files.size(vaultPath) - sizeBefore));
+        assertEquals(2, container.getFileCount());
+        VirtualFileSystem reopened = new VirtualFileSystem(container);
+        assertArrayEquals(content, reopened.readFile("/archive/note-7.txt"));
+        assertArrayEquals(content, reopened.readFile("/note-199.txt"));
+        assertEquals(200, reopened.list("/").size());
+    }
+
+    @Test
+    void inlineContentStoredInTheTreeMovesToInlinePages() {
+        byte[] content = "kept inline".getBytes(StandardCharsets.UTF_8);
+        byte[] rootId = "root".getBytes(StandardCharsets.UTF_8);
+        byte[] fileId = "legacy-file".getBytes(StandardCharsets.UTF_8);
+        byte[] name = "old.txt".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer tree = ByteBuffer.allocate(512);
+        tree.putInt(2);
+        tree.putInt(rootId.length).put(rootId).putInt(0).put((byte) 1).putInt(0);
+        tree.putLong(0).putLong(1).putLong(1);
+        tree.putInt(fileId.length).put(fileId).putInt(name.length).put(name).put((byte) 0);
+        tree.putInt(rootId.length).put(rootId);
+        tree.putLong(content.length).putLong(1).putLong(1);
+        tree.putInt(1).putInt(fileId.length).put(fileId).putInt(content.length).put(content);
+        tree.putInt(0);
+        container.writeMetadata(Arrays.copyOf(tree.array(), tree.position()));
+
+        VirtualFileSystem upgraded = new VirtualFileSystem(container);
+
+        assertArrayEquals(content, upgraded.readFile("/old.txt"));
+        assertEquals(1, container.getFileCount());
+        assertFalse(new String(container.readMetadata(), StandardCharsets.ISO_8859_1).contains("kept inline"));
+        assertArrayEquals(content, new VirtualFileSystem(container).readFile("/old.txt"));
+    }
+
+    @Test
+    void inlineFileMovesToContainerWhenItOutgrowsThreshold() {
+        VirtualFileSystem small = new VirtualFileSystem(container, 16);
+        small.createFile("/grow.txt", "0123456789".getBytes(StandardCharsets.UTF_8));
+        small.append("/grow.txt", "abcdef".getBytes(StandardCharsets.UTF_8));
+        assertTrue(small.getEntry("/grow.txt").isInline());
+
+        small.writeRange("/grow.txt", 14, "XYZ".getBytes(StandardCharsets.UTF_8));
+        assertFalse(small.getEntry("/grow.txt").isInline());
+        assertEquals(1, container.getFileCount());
+        assertArrayEquals("0123456789abcdXYZ".getBytes(StandardCharsets.UTF_8), small.readFile("/grow.txt"));
+        assertEquals(17, small.getEntry("/grow.txt").getSize());
+
+        small.writeFile("/grow.txt", "tiny".getBytes(StandardCharsets.UTF_8));
+        assertTrue(small.getEntry("/grow.txt").isInline());
+        assertEquals(1, container.getFileCount());
+        small.truncate("/grow.txt", 2);
+        assertArrayEquals("ti".getBytes(StandardCharsets.UTF_8), small.readFile("/grow.txt"));
+    }
+
+    @Test
+    void zeroInlineThresholdKeepsContentInContainer() {
+        VirtualFileSystem noInline = new VirtualFileSystem(container, 0);
+        noInline.createFile("/a.txt", "a".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(noInline.getEntry("/a.txt").isInline());
+        assertEquals(1, container.getFileCount());
+        assertThrows(IllegalArgumentException.class, () -> new VirtualFileSystem(container, -1));
+    }
+
+    @Test
+    void stagedFilesAppearOnlyWhenCommitted() {
+        byte[] large = new byte[200 * 1024];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 31);
+        }
+        StagedFile staged = vfs.stageFile(new ByteArrayInputStream(large));
+        StagedFile tiny = vfs.stageFile(new ByteArrayInputStream("tiny".getBytes(StandardCharsets.UTF_8)));
+        StagedFile dropped = vfs.stageFile(new ByteArrayInputStream(new byte[4096]));
+
+        assertFalse(staged.isInline());
+        assertTrue(tiny.isInline());
+        assertEquals(0, container.getFileCount());
+
+        vfs.commitStagedFile("/large.bin", staged);
+        vfs.commitStagedFile("/tiny.txt", tiny);
+        dropped.discard();
+
+        assertArrayEquals(large, vfs.readFile("/large.bin"));
+        assertEquals("tiny", new String(vfs.readFile("/tiny.txt"), StandardCharsets.UTF_8));
+        assertEquals(2, container.getFileCount());
+        assertThrows(IllegalStateException.class, () -> vfs.commitStagedFile("/again.bin", staged));
+        assertThrows(IllegalStateException.class, () -> vfs.commitStagedFile("/dropped.bin", dropped));
+    }
+
+    @Test
+    void readersOnOtherThreadsSeePublishedSnapshotDuringBatch() throws Exception {
+        vfs.createDirectory("/docs");
+        vfs.createFile("/docs/note.txt", "old".getBytes(StandardCharsets.UTF_8));
+        byte[] large = new byte[100 * 1024];
+        Arrays.fill(large, (byte) 7);
+        vfs.createFile("/docs/large.bin", large);
+
+        vfs.beginBatch();
+        vfs.writeFile("/docs/note.txt", "new".getBytes(StandardCharsets.UTF_8));
+        vfs.writeFile("/docs/large.bin", "shrunk".getBytes(StandardCharsets.UTF_8));
+        vfs.createFile("/docs/added.txt", "added".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, vfs.list("/docs").size());
+        assertEquals(2, (int) CompletableFuture.supplyAsync(() -> vfs.list("/docs").size()).get());
+        assertEquals("old", CompletableFuture.supplyAsync(
+                () -> new String(vfs.readFile("/docs/note.txt"), StandardCharsets.UTF_8)).get());
+        assertArrayEquals(large, CompletableFuture.supplyAsync(() -> vfs.readFile("/docs/large.bin")).get());
+        assertFalse(CompletableFuture.supplyAsync(() -> vfs.exists("/docs/added.txt")).get());
+
+        vfs.commitBatch();
+
+        assertEquals(3, (int) CompletableFuture.supplyAsync(() -> vfs.list("/docs").size()).get());
+        assertEquals("shrunk", CompletableFuture.supplyAsync(
+                () -> new String(vfs.readFile("/docs/large.bin"), StandardCharsets.UTF_8)).get());
+    }
+
+    @Test
+    void rollbackKeepsPublishedInlineContentIntact() {
+        vfs.createFile("/tiny.txt", "tiny".getBytes(StandardCharsets.UTF_8));
+        VfsEntry published = vfs.getEntry("/tiny.txt");
+
+        vfs.beginBatch();
+        vfs.append("/tiny.txt", "-more".getBytes(StandardCharsets.UTF_8));
+        vfs.delete("/tiny.txt");
+        vfs.rollbackBatch();
+
+        assertEquals(4, published.getSize());
+        assertEquals("tiny", new String(vfs.readFile("/tiny.txt"), StandardCharsets.UTF_8));
+        vfs.append("/tiny.txt", "!".getBytes(StandardCharsets.UTF_8));
+        assertEquals("tiny!", new String(vfs.readFile("/tiny.txt"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void batchIsOwnedByTheThreadThatStartedIt() throws Exception {
+        vfs.beginBatch();
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> CompletableFuture.runAsync(() -> vfs.commitBatch()).get());
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        vfs.rollbackBatch();
+        assertFalse(vfs.isBatchActive());
+    }
+
+    @Test
+    void concurrentReadersSeeWholeVersionsWhileFileIsOverwritten() throws Exception {
+        vfs.createFile("/shared.bin", version(1));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get() && torn.get() == null) {
+                    checkVersion(vfs.readFile("/shared.bin"), torn);
+                    checkVersion(vfs.readRange("/shared.bin", 0, 200_000), torn);
+                    try (SeekableByteChannel channel = vfs.openChannel("/shared.bin")) {
+                        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                        int read;
+                        do {
+                            read = channel.read(buffer);
+                        } while (read > 0 && buffer.hasRemaining());
+                        checkVersion(buffer.array(), torn);
+                    }
+                }
+            } catch (Exception e) {
+                torn.compareAndSet(null, e.toString());
+            }
+        });
+        reader.start();
+        try {
+            for (int k = 2; k < 60; k++) {
+                if (k % 2 == 0) {
+                    vfs.writeFile("/shared.bin", version(k));
+                } else {
+                    vfs.writeRange("/shared.bin", 0, version(k));
+                }
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        assertNull(torn.get());
+        vfs.createDirectory("/settled");
+        assertEquals(1, container.getFileCount());
+        assertEquals(59, vfs.readFile("/shared.bin")[0]);
+    }
+
+    @Test
+    void closeEndsAnotherThreadsBatchAndReclaimsRetiredContent() throws Exception {
+        vfs.createFile("/shared.bin", version(1));
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                vfs.readFile("/shared.bin");
+            }
+        });
+        reader.start();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread importer = new Thread(() -> {
+            try {
+                vfs.beginBatch();
+                vfs.createFile("/draft.bin", version(5));
+                started.countDown();
+                release.await();
+                vfs.rollbackBatch();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        try {
+            for (int k = 2; k < 40; k++) {
+                vfs.writeFile("/shared.bin", version(k));
+            }
+            importer.start();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+
+        vfs.close();
+        assertFalse(container.isBatchActive());
+        assertEquals(1, container.getFileCount());
+        release.countDown();
+        importer.join();
+        assertNull(failure.get());
+        assertThrows(IllegalStateException.class, vfs::beginBatch);
+    }
+
+    @Test
+    void openChannelKeepsReadingAfterFileIsDeleted() throws Exception {
+        byte[] content = version(3);
+        vfs.createFile("/gone.bin", content);
+
+        try (SeekableByteChannel channel = vfs.openChannel("/gone.bin")) {
+            vfs.delete("/gone.bin");
+            assertEquals(0, container.getFileCount());
+            ByteBuffer buffer = ByteBuffer.allocate(content.length);
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read > 0 && buffer.hasRemaining());
+            assertArrayEquals(content, buffer.array());
+        }
+        assertThrows(VfsException.class, () -> vfs.readFile("/gone.bin"));
+    }
+
+    @Test
+    void overwrittenContentSurvivesReopen() {
+        vfs.createFile("/doc.bin", version(1));
+        vfs.writeFile("/doc.bin", version(2));
+        vfs.append("/doc.bin", "tail".getBytes(StandardCharsets.UTF_8));
+
+        VirtualFileSystem reopened = new VirtualFileSystem(container);
+        byte[] read = reopened.readFile("/doc.bin");
+        assertEquals(version(2).length + 4, read.length);
+        assertEquals(2, read[0]);
+        assertEquals(1, container.getFileCount());
+    }
+
+    private static byte[] version(int k) {
+        byte[] content = new byte[64 * 1024 + k * 997];
+        Arrays.fill(content, (byte) k);
+        return content;
+    }
+
+    private static void checkVersion(byte[] content, AtomicReference<String> torn) {
+        for (byte b : content) {
+            if (b != content[0]) {
+                torn.compareAndSet(null, "mixed bytes " + content[0] + " and " + b);
+                return;
+            }
+        }
+        if (content.length != 64 * 1024 + content[0] * 997) {
+            torn.compareAndSet(null, "version " + content[0] + " has " + content.length + " bytes");
+        }
+    }
+
     @Test
     void dataPersistsAcrossVfsInstances() {
         byte[] content = "Persistent".getBytes(StandardCharsets.UTF_8);